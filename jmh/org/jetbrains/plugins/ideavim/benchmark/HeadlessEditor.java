@@ -0,0 +1,215 @@
+package org.jetbrains.plugins.ideavim.benchmark;
+
+import com.intellij.openapi.editor.*;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.extensions.ExtensionsArea;
+import com.intellij.openapi.util.Key;
+import com.maddyhome.idea.vim.extension.VimExtension;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A read-only editor over a fixed text that implements just enough of {@link Editor}, {@link Document} and
+ * {@link CaretModel} for the regexp engine and the search helpers. It lets the benchmarks run without an IDE instance.
+ * The document keeps user data, so the per-document indexes of the search helpers work, and ignores listeners, since
+ * its text never changes. Any other method throws {@link UnsupportedOperationException}.
+ */
+public class HeadlessEditor implements InvocationHandler {
+  private static final String[] WORDS = {
+    "the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "foo", "bar", "baz", "testing", "editor",
+    "regexp", "motion", "paragraph", "sentence", "camelCase", "snake_case", "42", "0x1F", "(", ")", "{", "}", ","
+  };
+
+  @NotNull private final CharSequence text;
+  @NotNull private final int[] lineStarts;
+  @NotNull private final Document document;
+  @NotNull private final CaretModel caretModel;
+  @NotNull private final Map<Key<?>, Object> userData = new HashMap<Key<?>, Object>();
+  private int caretOffset = 0;
+
+  private HeadlessEditor(@NotNull CharSequence text) {
+    this.text = text;
+    int count = 1;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        count++;
+      }
+    }
+    lineStarts = new int[count];
+    int line = 1;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        lineStarts[line++] = i + 1;
+      }
+    }
+    document = proxy(Document.class);
+    caretModel = proxy(CaretModel.class);
+  }
+
+  /**
+   * Creates an editor with the caret at the start of the text
+   */
+  @NotNull
+  public static Editor create(@NotNull CharSequence text) {
+    initOptions();
+    return new HeadlessEditor(text).proxy(Editor.class);
+  }
+
+  /**
+   * Generates prose-like text with sentences, punctuation and a blank line between paragraphs of 1 to 10 lines.
+   * The result only depends on the number of lines.
+   */
+  @NotNull
+  public static String generateText(int lines) {
+    final Random random = new Random(lines);
+    final StringBuilder res = new StringBuilder(lines * 60);
+    int paragraphLeft = 1 + random.nextInt(10);
+    for (int i = 0; i < lines; i++) {
+      if (paragraphLeft == 0) {
+        paragraphLeft = 1 + random.nextInt(10);
+      }
+      else {
+        final int words = 3 + random.nextInt(10);
+        for (int j = 0; j < words; j++) {
+          if (j > 0) {
+            res.append(' ');
+          }
+          res.append(WORDS[random.nextInt(WORDS.length)]);
+          if (random.nextInt(8) == 0) {
+            res.append(random.nextBoolean() ? ". " : "! ");
+            res.append("The");
+          }
+        }
+        res.append('.');
+        paragraphLeft--;
+      }
+      res.append('\n');
+    }
+    return res.toString();
+  }
+
+  /**
+   * Options register the extension options on creation, the extension point exists only in a running IDE. Call it
+   * before running code that reads options without an editor.
+   */
+  public static synchronized void initOptions() {
+    final ExtensionsArea area = Extensions.getRootArea();
+    final String name = VimExtension.EP_NAME.getName();
+    if (!area.hasExtensionPoint(name)) {
+      area.registerExtensionPoint(name, VimExtension.class.getName());
+    }
+  }
+
+  @Override
+  public Object invoke(Object proxy, @NotNull Method method, Object[] args) {
+    final String name = method.getName();
+    final int argCount = args != null ? args.length : 0;
+    if (name.equals("hashCode") && argCount == 0) {
+      return System.identityHashCode(proxy);
+    }
+    else if (name.equals("equals") && argCount == 1) {
+      return proxy == args[0];
+    }
+    else if (name.equals("toString") && argCount == 0) {
+      return "HeadlessEditor[" + method.getDeclaringClass().getSimpleName() + "]";
+    }
+    // Editor
+    else if (name.equals("getDocument")) {
+      return document;
+    }
+    else if (name.equals("getCaretModel")) {
+      return caretModel;
+    }
+    else if (name.equals("isDisposed") || name.equals("isOneLineMode")) {
+      return false;
+    }
+    else if (name.equals("isViewer")) {
+      return true;
+    }
+    else if (name.equals("offsetToLogicalPosition") && argCount == 1) {
+      return offsetToLogicalPosition((Integer)args[0]);
+    }
+    else if (name.equals("logicalPositionToOffset") && argCount == 1) {
+      final LogicalPosition pos = (LogicalPosition)args[0];
+      return Math.min(getLineStartOffset(pos.line) + pos.column, getLineEndOffset(pos.line));
+    }
+    // Document
+    else if (name.equals("getCharsSequence") || name.equals("getImmutableCharSequence")) {
+      return text;
+    }
+    else if (name.equals("getText") && argCount == 0) {
+      return text.toString();
+    }
+    else if (name.equals("getTextLength")) {
+      return text.length();
+    }
+    else if (name.equals("getLineCount")) {
+      return lineStarts.length;
+    }
+    else if (name.equals("getLineStartOffset") && argCount == 1) {
+      return getLineStartOffset((Integer)args[0]);
+    }
+    else if (name.equals("getLineEndOffset") && argCount == 1) {
+      return getLineEndOffset((Integer)args[0]);
+    }
+    else if (name.equals("getLineNumber") && argCount == 1) {
+      return getLineNumber((Integer)args[0]);
+    }
+    else if (name.equals("isWritable")) {
+      return false;
+    }
+    else if (name.equals("getUserData") && argCount == 1) {
+      return userData.get((Key<?>)args[0]);
+    }
+    else if (name.equals("putUserData") && argCount == 2) {
+      userData.put((Key<?>)args[0], args[1]);
+      return null;
+    }
+    else if (name.equals("addDocumentListener") || name.equals("removeDocumentListener")) {
+      return null;
+    }
+    // CaretModel
+    else if (name.equals("getOffset")) {
+      return caretOffset;
+    }
+    else if (name.equals("getLogicalPosition")) {
+      return offsetToLogicalPosition(caretOffset);
+    }
+    else if (name.equals("moveToOffset") && argCount >= 1) {
+      caretOffset = (Integer)args[0];
+      return null;
+    }
+    throw new UnsupportedOperationException(method.toString());
+  }
+
+  @NotNull
+  private <T> T proxy(@NotNull Class<T> cls) {
+    return cls.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{cls}, this));
+  }
+
+  private int getLineStartOffset(int line) {
+    return lineStarts[line];
+  }
+
+  private int getLineEndOffset(int line) {
+    return line + 1 < lineStarts.length ? lineStarts[line + 1] - 1 : text.length();
+  }
+
+  private int getLineNumber(int offset) {
+    final int res = Arrays.binarySearch(lineStarts, offset);
+    return res >= 0 ? res : -res - 2;
+  }
+
+  @NotNull
+  private LogicalPosition offsetToLogicalPosition(int offset) {
+    final int line = getLineNumber(offset);
+    return new LogicalPosition(line, offset - lineStarts[line]);
+  }
+}
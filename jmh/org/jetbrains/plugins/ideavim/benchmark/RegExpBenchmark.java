@@ -0,0 +1,84 @@
+package org.jetbrains.plugins.ideavim.benchmark;
+
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.LogicalPosition;
+import com.maddyhome.idea.vim.helper.DocumentSnapshot;
+import com.maddyhome.idea.vim.helper.EditorHelper;
+import com.maddyhome.idea.vim.helper.MatchFinder;
+import com.maddyhome.idea.vim.regexp.CharPointer;
+import com.maddyhome.idea.vim.regexp.RegExp;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching and substituting with the Vim regexp engine over whole documents, the same way as hlsearch and :s do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegExpBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  public int lines;
+
+  @Param({"fox", "\\<\\w\\+ing\\>", "\\(quick\\|lazy\\) \\a\\+", "o.*g$"})
+  public String pattern;
+
+  private Editor editor;
+  private RegExp.regprog_T prog;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    editor = HeadlessEditor.create(HeadlessEditor.generateText(lines));
+    prog = RegExp.compile(pattern, 1);
+  }
+
+  @Benchmark
+  public int findAll() {
+    final RegExp regExp = new RegExp();
+    final RegExp.regmmatch_T regMatch = new RegExp.regmmatch_T();
+    regMatch.regprog = prog;
+    final int lineCount = EditorHelper.getLineCount(editor);
+    int matches = 0;
+    for (int line = 0; line < lineCount; ) {
+      final int matchedLines = regExp.vim_regexec_multi(regMatch, editor, lineCount, line, 0);
+      if (matchedLines > 0) {
+        matches++;
+        line += matchedLines;
+      }
+      else {
+        line++;
+      }
+    }
+    return matches;
+  }
+
+  @Benchmark
+  public int findAllInChunks() {
+    final MatchFinder finder = new MatchFinder(DocumentSnapshot.create(editor.getDocument()), prog, false,
+                                               new LogicalPosition(0, 0), null);
+    return finder.findAll(0, EditorHelper.getLineCount(editor)).size();
+  }
+
+  @Benchmark
+  public void substituteAll(Blackhole blackhole) {
+    final RegExp regExp = new RegExp();
+    final RegExp.regmmatch_T regMatch = new RegExp.regmmatch_T();
+    regMatch.regprog = prog;
+    final int lineCount = EditorHelper.getLineCount(editor);
+    for (int line = 0; line < lineCount; ) {
+      final int matchedLines = regExp.vim_regexec_multi(regMatch, editor, lineCount, line, 0);
+      if (matchedLines > 0) {
+        blackhole.consume(regExp.vim_regsub_multi(regMatch, line, new CharPointer("<\\0>"), 1, false));
+        line += matchedLines;
+      }
+      else {
+        line++;
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package org.jetbrains.plugins.ideavim.benchmark;
+
+import com.maddyhome.idea.vim.regexp.CharPointer;
+import com.maddyhome.idea.vim.regexp.RegExp;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiling a pattern and matching and substituting it in a single line with the Vim regexp engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegExpLineBenchmark {
+  private static final String LINE = "the quick brown fox jumps over the lazy dog, testing camelCase and snake_case";
+
+  @Param({"fox", "\\<\\w\\+ing\\>", "\\(quick\\|lazy\\) \\a\\+", "o.*g$"})
+  public String pattern;
+
+  private RegExp.regprog_T prog;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    HeadlessEditor.initOptions();
+    prog = RegExp.compile(pattern, 1);
+  }
+
+  @Benchmark
+  public RegExp.regprog_T compile() {
+    return RegExp.compile(pattern, 1);
+  }
+
+  @Benchmark
+  public boolean execLine() {
+    final RegExp regExp = new RegExp();
+    final RegExp.regmatch_T regMatch = new RegExp.regmatch_T();
+    regMatch.regprog = prog;
+    return regExp.vim_regexec(regMatch, new CharPointer(LINE), 0);
+  }
+
+  @Benchmark
+  public String substituteLine() {
+    final RegExp regExp = new RegExp();
+    final RegExp.regmatch_T regMatch = new RegExp.regmatch_T();
+    regMatch.regprog = prog;
+    if (regExp.vim_regexec(regMatch, new CharPointer(LINE), 0)) {
+      return regExp.vim_regsub(regMatch, new CharPointer("<&>"), 1, false);
+    }
+    return null;
+  }
+}
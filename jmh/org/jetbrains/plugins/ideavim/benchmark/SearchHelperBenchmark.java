@@ -0,0 +1,59 @@
+package org.jetbrains.plugins.ideavim.benchmark;
+
+import com.intellij.openapi.editor.Editor;
+import com.maddyhome.idea.vim.helper.EditorHelper;
+import com.maddyhome.idea.vim.helper.SearchHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Word, sentence and paragraph motions with large counts, starting from either end of the document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchHelperBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  public int lines;
+
+  @Param({"1", "100", "10000"})
+  public int count;
+
+  private Editor editor;
+  private CharSequence chars;
+  private int size;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    editor = HeadlessEditor.create(HeadlessEditor.generateText(lines));
+    chars = editor.getDocument().getCharsSequence();
+    size = EditorHelper.getFileSize(editor);
+  }
+
+  @Benchmark
+  public int nextWord() {
+    return SearchHelper.findNextWord(chars, 0, size, count, false, false);
+  }
+
+  @Benchmark
+  public int nextParagraph() {
+    editor.getCaretModel().moveToOffset(0);
+    return SearchHelper.findNextParagraph(editor, count, false);
+  }
+
+  @Benchmark
+  public int previousParagraph() {
+    editor.getCaretModel().moveToOffset(size - 1);
+    return SearchHelper.findNextParagraph(editor, -count, false);
+  }
+
+  @Benchmark
+  public int nextSentence() {
+    editor.getCaretModel().moveToOffset(0);
+    return SearchHelper.findNextSentenceStart(editor, count, false, false);
+  }
+}
@@ -0,0 +1,36 @@
+package org.jetbrains.plugins.ideavim.benchmark;
+
+import com.maddyhome.idea.vim.helper.StringHelper;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting key notation and plain text to keystrokes, as done for mappings, macros and the tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StringHelperBenchmark {
+  private String text;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    text = HeadlessEditor.generateText(20);
+  }
+
+  @Benchmark
+  public List<KeyStroke> parseKeys() {
+    return StringHelper.parseKeys("<C-w>l", ":nohlsearch<CR>", "ihello world<Esc>");
+  }
+
+  @Benchmark
+  public List<KeyStroke> stringToKeys() {
+    return StringHelper.stringToKeys(text);
+  }
+}
@@ -21,6 +21,8 @@ package com.maddyhome.idea.vim;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.ShortcutSet;
+import com.intellij.openapi.command.CommandListener;
+import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.EditorFactory;
@@ -92,6 +94,10 @@ public class EventFacade {
     document.removeDocumentListener(listener);
   }
 
+  public void addCommandListener(@NotNull CommandListener listener, @NotNull Disposable parentDisposable) {
+    CommandProcessor.getInstance().addCommandListener(listener, parentDisposable);
+  }
+
   public void addEditorFactoryListener(@NotNull EditorFactoryListener listener, @NotNull Disposable parentDisposable) {
     EditorFactory.getInstance().addEditorFactoryListener(listener, parentDisposable);
   }
@@ -43,12 +43,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Stack;
+import java.util.*;
 
 /**
  * This handlers every keystroke that the user can argType except those that are still valid hotkeys for various Idea
@@ -127,6 +123,20 @@ public class KeyHandler {
 
   public void handleKey(@NotNull Editor editor, @NotNull KeyStroke key, @NotNull DataContext context,
                         boolean allowKeyMappings) {
+    // Only keys typed by the user are measured, not the ones handled recursively for mappings and arguments
+    final long startTime = handleKeyDepth == 0 ? Profiler.start() : 0;
+    handleKeyDepth++;
+    try {
+      handleKeyInternal(editor, key, context, allowKeyMappings);
+    }
+    finally {
+      handleKeyDepth--;
+      Profiler.stop(Profiler.KEY, "handleKey", startTime);
+    }
+  }
+
+  private void handleKeyInternal(@NotNull Editor editor, @NotNull KeyStroke key, @NotNull DataContext context,
+                                 boolean allowKeyMappings) {
     VimPlugin.clearError();
     // All the editor actions should be performed with top level editor!!!
     // Be careful: all the EditorActionHandler implementation should correctly process InjectedEditors
@@ -144,7 +154,7 @@ public class KeyHandler {
       // Update the count
       count = count * 10 + (chKey - '0');
     }
-    else if (allowKeyMappings && handleKeyMapping(editor, key, context)) {
+    else if (allowKeyMappings && handleKeyMappingProfiled(editor, key, context)) {
       return;
     }
     // Pressing delete while entering a count "removes" the last digit entered
@@ -189,7 +199,7 @@ public class KeyHandler {
         shouldRecord = handleArgumentNode(editor, key, context, editorState, (ArgumentNode)node);
       }
       else {
-        if (lastWasBS && lastChar != 0 && Options.getInstance().isSet("digraph")) {
+        if (lastWasBS && lastChar != 0 && Options.getInstance().getDigraphOption().getValue()) {
           char dig = VimPlugin.getDigraph().getDigraph(lastChar, key.getKeyChar());
           key = KeyStroke.getKeyStroke(dig);
         }
@@ -238,80 +248,62 @@ public class KeyHandler {
     }
   }
 
+  private boolean handleKeyMappingProfiled(@NotNull Editor editor, @NotNull KeyStroke key,
+                                           @NotNull DataContext context) {
+    final long startTime = Profiler.start();
+    try {
+      return handleKeyMapping(editor, key, context);
+    }
+    finally {
+      Profiler.stop(Profiler.MAPPING, "resolve", startTime);
+    }
+  }
+
   private boolean handleKeyMapping(@NotNull final Editor editor, @NotNull final KeyStroke key,
                                    @NotNull final DataContext context) {
     final CommandState commandState = CommandState.getInstance(editor);
-    commandState.stopMappingTimer();
+    MappingTimeoutScheduler.getInstance().cancel(editor);
 
     final List<KeyStroke> mappingKeys = commandState.getMappingKeys();
-    final List<KeyStroke> fromKeys = new ArrayList<KeyStroke>(mappingKeys);
-    fromKeys.add(key);
-
     final MappingMode mappingMode = commandState.getMappingMode();
     if (MappingMode.NVO.contains(mappingMode) && (state != State.NEW_COMMAND || currentArg != Argument.Type.NONE)) {
       return false;
     }
 
     final KeyMapping mapping = VimPlugin.getKey().getKeyMapping(mappingMode);
-    final MappingInfo currentMappingInfo = mapping.get(fromKeys);
-    final MappingInfo prevMappingInfo = mapping.get(mappingKeys);
-    final MappingInfo mappingInfo = currentMappingInfo != null ? currentMappingInfo : prevMappingInfo;
+    // Most of the keys don't start a mapping, skip them without copying the pending keys
+    if (mappingKeys.isEmpty() && !mapping.hasMappingStartingWith(key)) {
+      return false;
+    }
 
-    final Application application = ApplicationManager.getApplication();
+    final List<KeyStroke> fromKeys = new ArrayList<KeyStroke>(mappingKeys);
+    fromKeys.add(key);
 
     if (mapping.isPrefix(fromKeys)) {
       mappingKeys.add(key);
-      if (!application.isUnitTestMode() && Options.getInstance().isSet(Options.TIMEOUT)) {
-        commandState.startMappingTimer(new ActionListener() {
-          @Override
-          public void actionPerformed(ActionEvent actionEvent) {
-            mappingKeys.clear();
-            for (KeyStroke keyStroke : fromKeys) {
-              handleKey(editor, keyStroke, new EditorDataContext(editor), false);
-            }
-          }
-        });
+      final int timeout = MappingTimeoutScheduler.getTimeout(fromKeys);
+      if (!ApplicationManager.getApplication().isUnitTestMode() && timeout >= 0) {
+        MappingTimeoutScheduler.getInstance().schedule(editor, timeout);
       }
       return true;
     }
-    else if (mappingInfo != null) {
+
+    final MappingInfo currentMappingInfo = mapping.get(fromKeys);
+    if (currentMappingInfo != null) {
       mappingKeys.clear();
-      final Runnable handleMappedKeys = new Runnable() {
-        @Override
-        public void run() {
-          if (editor.isDisposed()) {
-            return;
-          }
-          final List<KeyStroke> toKeys = mappingInfo.getToKeys();
-          final VimExtensionHandler extensionHandler = mappingInfo.getExtensionHandler();
-          final EditorDataContext currentContext = new EditorDataContext(editor);
-          if (toKeys != null) {
-            final boolean fromIsPrefix = isPrefix(mappingInfo.getFromKeys(), toKeys);
-            boolean first = true;
-            for (KeyStroke keyStroke : toKeys) {
-              final boolean recursive = mappingInfo.isRecursive() && !(first && fromIsPrefix);
-              handleKey(editor, keyStroke, currentContext, recursive);
-              first = false;
-            }
-          }
-          else if (extensionHandler != null) {
-            RunnableHelper.runWriteCommand(editor.getProject(), new Runnable() {
-              @Override
-              public void run() {
-                extensionHandler.execute(editor, context);
-              }
-            }, "Vim " + extensionHandler.getClass().getSimpleName(), null);
-          }
-          if (prevMappingInfo != null) {
-            handleKey(editor, key, currentContext);
-          }
-        }
-      };
-      if (application.isUnitTestMode()) {
-        handleMappedKeys.run();
-      }
-      else {
-        application.invokeLater(handleMappedKeys);
+      runMapping(editor, context, currentMappingInfo, Collections.<KeyStroke>emptyList());
+      return true;
+    }
+
+    // No longer mapping can match, run the longest complete mapping of the pending keys and handle the rest again
+    final int length = getLongestMappingLength(mapping, mappingKeys);
+    if (length > 0) {
+      final MappingInfo mappingInfo = mapping.get(mappingKeys.subList(0, length));
+      final List<KeyStroke> restKeys = new ArrayList<KeyStroke>(mappingKeys.subList(length, mappingKeys.size()));
+      restKeys.add(key);
+      mappingKeys.clear();
+      if (mappingInfo != null) {
+        runMapping(editor, context, mappingInfo, restKeys);
       }
       return true;
     }
@@ -325,6 +317,91 @@ public class KeyHandler {
     }
   }
 
+  /**
+   * Resolves the pending keys of a mapping prefix after the mapping timeout has elapsed. The longest complete mapping
+   * of the pending keys is run, if there is none the keys are handled without mappings.
+   *
+   * @param editor The editor with the pending keys
+   */
+  public void handlePendingMappingTimeout(@NotNull Editor editor) {
+    if (editor.isDisposed()) {
+      return;
+    }
+    final CommandState commandState = CommandState.getInstance(editor);
+    final List<KeyStroke> mappingKeys = commandState.getMappingKeys();
+    if (mappingKeys.isEmpty()) {
+      return;
+    }
+    final KeyMapping mapping = VimPlugin.getKey().getKeyMapping(commandState.getMappingMode());
+    final List<KeyStroke> pendingKeys = new ArrayList<KeyStroke>(mappingKeys);
+    mappingKeys.clear();
+    final EditorDataContext context = EditorDataContext.getInstance(editor);
+    final int length = getLongestMappingLength(mapping, pendingKeys);
+    final MappingInfo mappingInfo = length > 0 ? mapping.get(pendingKeys.subList(0, length)) : null;
+    if (mappingInfo != null) {
+      runMapping(editor, context, mappingInfo, pendingKeys.subList(length, pendingKeys.size()));
+    }
+    else {
+      for (KeyStroke keyStroke : pendingKeys) {
+        handleKey(editor, keyStroke, context, false);
+      }
+    }
+  }
+
+  private static int getLongestMappingLength(@NotNull KeyMapping mapping, @NotNull List<KeyStroke> keys) {
+    for (int length = keys.size(); length > 0; length--) {
+      if (mapping.get(keys.subList(0, length)) != null) {
+        return length;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Runs the mapping and then handles the keys that were typed after its left-hand side
+   */
+  private void runMapping(@NotNull final Editor editor, @NotNull final DataContext context,
+                          @NotNull final MappingInfo mappingInfo, @NotNull final List<KeyStroke> restKeys) {
+    final Runnable handleMappedKeys = new Runnable() {
+      @Override
+      public void run() {
+        if (editor.isDisposed()) {
+          return;
+        }
+        final List<KeyStroke> toKeys = mappingInfo.getToKeys();
+        final VimExtensionHandler extensionHandler = mappingInfo.getExtensionHandler();
+        final EditorDataContext currentContext = EditorDataContext.getInstance(editor);
+        if (toKeys != null) {
+          final boolean fromIsPrefix = isPrefix(mappingInfo.getFromKeys(), toKeys);
+          boolean first = true;
+          for (KeyStroke keyStroke : toKeys) {
+            final boolean recursive = mappingInfo.isRecursive() && !(first && fromIsPrefix);
+            handleKey(editor, keyStroke, currentContext, recursive);
+            first = false;
+          }
+        }
+        else if (extensionHandler != null) {
+          RunnableHelper.runWriteCommand(editor.getProject(), new Runnable() {
+            @Override
+            public void run() {
+              extensionHandler.execute(editor, context);
+            }
+          }, "Vim " + extensionHandler.getClass().getSimpleName(), null);
+        }
+        for (KeyStroke keyStroke : restKeys) {
+          handleKey(editor, keyStroke, currentContext);
+        }
+      }
+    };
+    final Application application = ApplicationManager.getApplication();
+    if (application.isUnitTestMode()) {
+      handleMappedKeys.run();
+    }
+    else {
+      application.invokeLater(handleMappedKeys);
+    }
+  }
+
   private static <T> boolean isPrefix(@NotNull List<T> list1, @NotNull List<T> list2) {
     if (list1.size() > list2.size()) {
       return false;
@@ -471,8 +548,7 @@ public class KeyHandler {
     if (cmd.getType().isRead() || project == null || EditorHelper.canEdit(project, editor)) {
       if (ApplicationManager.getApplication().isDispatchThread()) {
         Runnable action = new ActionRunner(editor, context, cmd, key);
-        String name = cmd.getAction().getTemplatePresentation().getText();
-        name = name != null ? "Vim " + name : "";
+        final String name = getCommandName(cmd.getAction());
         if (cmd.getType().isWrite()) {
           RunnableHelper.runWriteCommand(project, action, name, action);
         }
@@ -487,11 +563,22 @@ public class KeyHandler {
     }
   }
 
+  @NotNull
+  private String getCommandName(@NotNull AnAction action) {
+    String name = commandNames.get(action);
+    if (name == null) {
+      final String text = action.getTemplatePresentation().getText();
+      name = text != null ? "Vim " + text : "";
+      commandNames.put(action, name);
+    }
+    return name;
+  }
+
   private boolean handleArgumentNode(@NotNull Editor editor, @NotNull KeyStroke key, @NotNull DataContext context,
                                      @NotNull CommandState editorState, @NotNull ArgumentNode node) {
     // Create a new command based on what the user has typed so far, excluding this keystroke.
     Command cmd = new Command(count, node.getActionId(), node.getAction(), node.getCmdType(), node.getFlags());
-    cmd.setKeys(keys);
+    cmd.setKeys(new ArrayList<KeyStroke>(keys));
     currentCmd.push(cmd);
     // What type of argument does this command expect?
     switch (node.getArgType()) {
@@ -536,13 +623,13 @@ public class KeyHandler {
       if (node.getCmdType() == Command.Type.MOTION) {
         // Create the motion command and add it to the stack
         Command cmd = new Command(count, node.getActionId(), node.getAction(), node.getCmdType(), node.getFlags());
-        cmd.setKeys(keys);
+        cmd.setKeys(new ArrayList<KeyStroke>(keys));
         currentCmd.push(cmd);
       }
       else if (node.getCmdType() == Command.Type.RESET) {
         currentCmd.clear();
         Command cmd = new Command(1, node.getActionId(), node.getAction(), node.getCmdType(), node.getFlags());
-        cmd.setKeys(keys);
+        cmd.setKeys(new ArrayList<KeyStroke>(keys));
         currentCmd.push(cmd);
       }
       else {
@@ -561,7 +648,7 @@ public class KeyHandler {
     else {
       // Create the command and add it to the stack
       Command cmd = new Command(count, node.getActionId(), node.getAction(), node.getCmdType(), node.getFlags());
-      cmd.setKeys(keys);
+      cmd.setKeys(new ArrayList<KeyStroke>(keys));
       currentCmd.push(cmd);
 
       // This is a sanity check that the command has a valid action. This should only fail if the
@@ -642,9 +729,12 @@ public class KeyHandler {
    */
   private void partialReset(@Nullable Editor editor) {
     count = 0;
-    keys = new ArrayList<KeyStroke>();
+    // Commands get their own copies of the keys, so the list can be reused
+    keys.clear();
     CommandState editorState = CommandState.getInstance(editor);
-    editorState.stopMappingTimer();
+    if (editor != null) {
+      MappingTimeoutScheduler.getInstance().cancel(editor);
+    }
     editorState.getMappingKeys().clear();
     editorState.setCurrentNode(VimPlugin.getKey().getKeyRoot(editorState.getMappingMode()));
   }
@@ -692,7 +782,13 @@ public class KeyHandler {
       CommandState editorState = CommandState.getInstance(editor);
       boolean wasRecording = editorState.isRecording();
 
+      final long startTime = Profiler.start();
       executeAction(cmd.getAction(), context);
+      if (startTime != 0) {
+        final String actionId = ActionManager.getInstance().getId(cmd.getAction());
+        Profiler.stop(Profiler.ACTION, actionId != null ? actionId : cmd.getAction().getClass().getSimpleName(),
+                      startTime);
+      }
       if (editorState.getMode() == CommandState.Mode.INSERT || editorState.getMode() == CommandState.Mode.REPLACE) {
         VimPlugin.getChange().processCommand(editor, cmd);
       }
@@ -736,7 +832,7 @@ public class KeyHandler {
   }
 
   private int count;
-  private List<KeyStroke> keys;
+  @NotNull private final List<KeyStroke> keys = new ArrayList<KeyStroke>();
   private State state;
   @NotNull private final Stack<Command> currentCmd = new Stack<Command>();
   @NotNull private Argument.Type currentArg;
@@ -744,6 +840,8 @@ public class KeyHandler {
   @Nullable private DigraphSequence digraph = null;
   private char lastChar;
   private boolean lastWasBS;
+  private int handleKeyDepth = 0;
+  @NotNull private final Map<AnAction, String> commandNames = new HashMap<AnAction, String>();
 
   private static KeyHandler instance;
 }
@@ -49,11 +49,11 @@ import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.openapi.wm.StatusBar;
 import com.intellij.openapi.wm.WindowManager;
 import com.intellij.util.io.HttpRequests;
-import com.maddyhome.idea.vim.ex.CommandParser;
 import com.maddyhome.idea.vim.ex.vimscript.VimScriptParser;
 import com.maddyhome.idea.vim.group.*;
 import com.maddyhome.idea.vim.helper.DocumentManager;
 import com.maddyhome.idea.vim.helper.MacKeyRepeat;
+import com.maddyhome.idea.vim.helper.UndoRedoHelper;
 import com.maddyhome.idea.vim.option.Options;
 import com.maddyhome.idea.vim.ui.VimEmulationConfigurable;
 import org.jdom.Element;
@@ -106,6 +106,7 @@ public class VimPlugin implements ApplicationComponent, PersistentStateComponent
   @NotNull private final ChangeGroup change;
   @NotNull private final CopyGroup copy;
   @NotNull private final MarkGroup mark;
+  @NotNull private final QuickFixGroup quickFix;
   @NotNull private final RegisterGroup register;
   @NotNull private final FileGroup file;
   @NotNull private final SearchGroup search;
@@ -122,6 +123,7 @@ public class VimPlugin implements ApplicationComponent, PersistentStateComponent
     change = new ChangeGroup();
     copy = new CopyGroup();
     mark = new MarkGroup();
+    quickFix = new QuickFixGroup();
     register = new RegisterGroup();
     file = new FileGroup();
     search = new SearchGroup();
@@ -154,25 +156,33 @@ public class VimPlugin implements ApplicationComponent, PersistentStateComponent
       }
     });
 
+    final long startTime = System.nanoTime();
+
     final TypedAction typedAction = EditorActionManager.getInstance().getTypedAction();
     EventFacade.getInstance().setupTypedActionHandler(new VimTypedActionHandler(typedAction.getRawHandler()));
 
     // Register vim actions in command mode
     RegisterActions.registerActions();
+    final long actionsTime = System.nanoTime();
 
     // Add some listeners so we can handle special events
     setupListeners();
+    final long listenersTime = System.nanoTime();
 
-    // Register ex handlers
-    CommandParser.getInstance().registerHandlers();
-
+    // Ex handlers are registered by the command parser on first use
     if (!ApplicationManager.getApplication().isUnitTestMode()) {
       final File ideaVimRc = VimScriptParser.findIdeaVimRc();
       if (ideaVimRc != null) {
         VimScriptParser.executeFile(ideaVimRc);
       }
     }
+    final long vimRcTime = System.nanoTime();
 
+    LOG.info(String.format("Started in %d ms (actions: %d ms, listeners: %d ms, vimrc: %d ms)",
+                           TimeUnit.NANOSECONDS.toMillis(vimRcTime - startTime),
+                           TimeUnit.NANOSECONDS.toMillis(actionsTime - startTime),
+                           TimeUnit.NANOSECONDS.toMillis(listenersTime - actionsTime),
+                           TimeUnit.NANOSECONDS.toMillis(vimRcTime - listenersTime)));
     LOG.debug("done");
   }
 
@@ -249,6 +259,11 @@ public class VimPlugin implements ApplicationComponent, PersistentStateComponent
     return getInstance().mark;
   }
 
+  @NotNull
+  public static QuickFixGroup getQuickFix() {
+    return getInstance().quickFix;
+  }
+
   @NotNull
   public static RegisterGroup getRegister() {
     return getInstance().register;
@@ -463,6 +478,9 @@ public class VimPlugin implements ApplicationComponent, PersistentStateComponent
 
     DocumentManager.getInstance().addDocumentListener(new MarkGroup.MarkUpdater());
     DocumentManager.getInstance().addDocumentListener(new SearchGroup.DocumentSearchListener());
+    final UndoRedoHelper.ChangeTimeRecorder changeTimeRecorder = new UndoRedoHelper.ChangeTimeRecorder();
+    DocumentManager.getInstance().addDocumentListener(changeTimeRecorder.getDocumentListener());
+    eventFacade.addCommandListener(changeTimeRecorder, ApplicationManager.getApplication());
 
     eventFacade.addProjectManagerListener(new ProjectManagerAdapter() {
       @Override
@@ -65,7 +65,7 @@ public class VimTypedActionHandler implements TypedActionHandlerEx {
   public void execute(@NotNull final Editor editor, final char charTyped, @NotNull final DataContext context) {
     if (isEnabled(editor)) {
       try {
-        handler.handleKey(editor, KeyStroke.getKeyStroke(charTyped), new EditorDataContext(editor));
+        handler.handleKey(editor, KeyStroke.getKeyStroke(charTyped), EditorDataContext.getInstance(editor));
       }
       catch (Throwable e) {
         logger.error(e);
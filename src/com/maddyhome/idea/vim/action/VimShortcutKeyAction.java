@@ -99,7 +99,7 @@ public class VimShortcutKeyAction extends AnAction implements DumbAware {
       }
       // Should we use InjectedLanguageUtil.getTopLevelEditor(editor) here, as we did in former EditorKeyHandler?
       try {
-        KeyHandler.getInstance().handleKey(editor, keyStroke, new EditorDataContext(editor));
+        KeyHandler.getInstance().handleKey(editor, keyStroke, EditorDataContext.getInstance(editor));
       }
       catch (Throwable throwable) {
         ourLogger.error(throwable);
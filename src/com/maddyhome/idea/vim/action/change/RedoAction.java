@@ -35,7 +35,7 @@ public class RedoAction extends EditorAction {
 
   private static class Handler extends EditorActionHandlerBase {
     protected boolean execute(@NotNull Editor editor, @NotNull DataContext context, @NotNull Command cmd) {
-      return UndoRedoHelper.redo(context);
+      return UndoRedoHelper.redo(context, cmd.getCount());
     }
   }
 }
@@ -43,7 +43,7 @@ public class MotionGotoLineLastEndAction extends MotionEditorAction {
         allow = true;
       }
       else if (CommandState.getInstance(editor).getMode() == CommandState.Mode.VISUAL) {
-        BoundStringOption opt = (BoundStringOption)Options.getInstance().getOption("selection");
+        BoundStringOption opt = Options.getInstance().getSelectionOption();
         if (!opt.getValue().equals("old")) {
           allow = true;
         }
@@ -22,20 +22,16 @@ import com.intellij.openapi.editor.Editor;
 import com.maddyhome.idea.vim.VimPlugin;
 import com.maddyhome.idea.vim.helper.EditorData;
 import com.maddyhome.idea.vim.key.ParentNode;
-import com.maddyhome.idea.vim.option.NumberOption;
 import com.maddyhome.idea.vim.option.Options;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 
 public class CommandState {
-  public static final int DEFAULT_TIMEOUT_LENGTH = 1000;
-
   @Nullable private static Command ourLastChange = null;
   private char myLastChangeRegister;
 
@@ -44,13 +40,10 @@ public class CommandState {
   @Nullable private Command myCommand;
   @NotNull private ParentNode myCurrentNode = VimPlugin.getKey().getKeyRoot(getMappingMode());
   @NotNull private final List<KeyStroke> myMappingKeys = new ArrayList<KeyStroke>();
-  @NotNull private final Timer myMappingTimer;
   private int myFlags;
   private boolean myIsRecording = false;
 
   private CommandState() {
-    myMappingTimer = new Timer(DEFAULT_TIMEOUT_LENGTH, null);
-    myMappingTimer.setRepeats(false);
     myStates.push(new State(Mode.COMMAND, SubMode.NONE, MappingMode.NORMAL));
     myLastChangeRegister = VimPlugin.getRegister().getDefaultRegister();
   }
@@ -138,22 +131,6 @@ public class CommandState {
     return myMappingKeys;
   }
 
-  public void startMappingTimer(@NotNull ActionListener actionListener) {
-    final NumberOption timeoutLength = Options.getInstance().getNumberOption("timeoutlen");
-    if (timeoutLength != null) {
-      myMappingTimer.setInitialDelay(timeoutLength.value());
-    }
-    for (ActionListener listener : myMappingTimer.getActionListeners()) {
-      myMappingTimer.removeActionListener(listener);
-    }
-    myMappingTimer.addActionListener(actionListener);
-    myMappingTimer.start();
-  }
-
-  public void stopMappingTimer() {
-    myMappingTimer.stop();
-  }
-
   @NotNull
   private String getStatusString(int pos) {
     State state;
@@ -302,7 +279,7 @@ public class CommandState {
 
   private void updateStatus() {
     final StringBuilder msg = new StringBuilder();
-    if (Options.getInstance().isSet("showmode")) {
+    if (Options.getInstance().getShowModeOption().getValue()) {
       msg.append(getStatusString(myStates.size() - 1));
     }
 
@@ -0,0 +1,153 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.common;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of positions in files with the text found there, filled by :vimgrep. The entries are added by the search
+ * threads as they find them, so the list can be read while it is still growing.
+ * <p/>
+ * A search may find hundreds of thousands of matches, so the entries aren't kept as objects. Each field is stored in a
+ * column of its own, the files are stored once and referred to by index, and the texts are packed into one buffer and
+ * shared by the matches on the same line. {@link #get(int)} creates the entry object on demand.
+ */
+public class QuickFixList {
+  @NotNull private final String myTitle;
+
+  @NotNull private final List<VirtualFile> myFiles = new ArrayList<VirtualFile>();
+  @NotNull private final TObjectIntHashMap<VirtualFile> myFileIndexes = new TObjectIntHashMap<VirtualFile>();
+  @NotNull private final StringBuilder myTexts = new StringBuilder();
+  @NotNull private final TIntArrayList myTextStarts = new TIntArrayList();
+
+  @NotNull private final TIntArrayList myEntryFiles = new TIntArrayList();
+  @NotNull private final TIntArrayList myEntryLines = new TIntArrayList();
+  @NotNull private final TIntArrayList myEntryCols = new TIntArrayList();
+  @NotNull private final TIntArrayList myEntryTexts = new TIntArrayList();
+
+  public QuickFixList(@NotNull String title) {
+    myTitle = title;
+  }
+
+  /**
+   * The command that has created the list
+   */
+  @NotNull
+  public String getTitle() {
+    return myTitle;
+  }
+
+  /**
+   * Adds an entry, the leading white space of the text is dropped. The entries of a file are added as one block, so
+   * that the ones of another file found at the same time don't come in between.
+   *
+   * @param texts the text of each line of the entries
+   */
+  public synchronized void addAll(@NotNull VirtualFile file, @NotNull TIntArrayList lines, @NotNull TIntArrayList cols,
+                                  @NotNull List<String> texts) {
+    for (int i = 0; i < lines.size(); i++) {
+      add(file, lines.get(i), cols.get(i), texts.get(i));
+    }
+  }
+
+  /**
+   * Adds an entry, the leading white space of the text is dropped
+   */
+  public synchronized void add(@NotNull VirtualFile file, int line, int col, @NotNull String text) {
+    final int fileIndex;
+    if (myFileIndexes.containsKey(file)) {
+      fileIndex = myFileIndexes.get(file);
+    }
+    else {
+      fileIndex = myFiles.size();
+      myFiles.add(file);
+      myFileIndexes.put(file, fileIndex);
+    }
+
+    final int last = myEntryFiles.size() - 1;
+    final int textIndex;
+    if (last >= 0 && myEntryFiles.get(last) == fileIndex && myEntryLines.get(last) == line) {
+      textIndex = myEntryTexts.get(last);
+    }
+    else {
+      textIndex = myTextStarts.size();
+      myTextStarts.add(myTexts.length());
+      int start = 0;
+      while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+        start++;
+      }
+      myTexts.append(text, start, text.length());
+    }
+
+    myEntryFiles.add(fileIndex);
+    myEntryLines.add(line);
+    myEntryCols.add(col);
+    myEntryTexts.add(textIndex);
+  }
+
+  public synchronized int size() {
+    return myEntryFiles.size();
+  }
+
+  @NotNull
+  public synchronized Entry get(int index) {
+    final int textIndex = myEntryTexts.get(index);
+    final int textEnd = textIndex + 1 < myTextStarts.size() ? myTextStarts.get(textIndex + 1) : myTexts.length();
+    return new Entry(myFiles.get(myEntryFiles.get(index)), myEntryLines.get(index), myEntryCols.get(index),
+                     myTexts.substring(myTextStarts.get(textIndex), textEnd));
+  }
+
+  public static class Entry {
+    @NotNull private final VirtualFile myFile;
+    private final int myLine;
+    private final int myCol;
+    @NotNull private final String myText;
+
+    public Entry(@NotNull VirtualFile file, int line, int col, @NotNull String text) {
+      myFile = file;
+      myLine = line;
+      myCol = col;
+      myText = text;
+    }
+
+    @NotNull
+    public VirtualFile getFile() {
+      return myFile;
+    }
+
+    public int getLine() {
+      return myLine;
+    }
+
+    public int getCol() {
+      return myCol;
+    }
+
+    @NotNull
+    public String getText() {
+      return myText;
+    }
+  }
+}
@@ -18,6 +18,7 @@
 
 package com.maddyhome.idea.vim.common;
 
+import com.intellij.openapi.util.text.StringUtil;
 import com.maddyhome.idea.vim.command.SelectionType;
 import com.maddyhome.idea.vim.helper.StringHelper;
 import org.jetbrains.annotations.NotNull;
@@ -25,27 +26,35 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
 /**
  * Represents a register.
+ * <p/>
+ * The contents are immutable and can be shared by several registers: the text and the list of keys are never modified,
+ * appending replaces them with new instances. A register stored as text creates its keys only when they are requested.
  */
 public class Register {
   private char name;
   @NotNull private final SelectionType type;
-  @NotNull private final List<KeyStroke> keys;
+  @Nullable private String text;
+  @Nullable private List<KeyStroke> keys;
 
   public Register(char name, @NotNull SelectionType type, @NotNull String text) {
     this.name = name;
     this.type = type;
-    this.keys = StringHelper.stringToKeys(text);
+    this.text = text;
+    this.keys = null;
   }
 
   public Register(char name, @NotNull SelectionType type, @NotNull List<KeyStroke> keys) {
     this.name = name;
     this.type = type;
-    this.keys = keys;
+    this.text = null;
+    this.keys = Collections.unmodifiableList(new ArrayList<KeyStroke>(keys));
   }
 
   public void rename(char name) {
@@ -72,15 +81,10 @@ public class Register {
    */
   @Nullable
   public String getText() {
-    final StringBuilder builder = new StringBuilder();
-    for (KeyStroke key : keys) {
-      final char c = key.getKeyChar();
-      if (c == KeyEvent.CHAR_UNDEFINED) {
-        return null;
-      }
-      builder.append(c);
+    if (text == null && keys != null) {
+      text = keysToText(keys);
     }
-    return builder.toString();
+    return text;
   }
 
   /**
@@ -88,18 +92,59 @@ public class Register {
    */
   @NotNull
   public List<KeyStroke> getKeys() {
+    if (keys == null) {
+      keys = Collections.unmodifiableList(StringHelper.stringToKeys(StringUtil.notNullize(text)));
+    }
     return keys;
   }
 
+  /**
+   * Get at most count first keys of the register, the keys of the rest of the text aren't created.
+   */
+  @NotNull
+  public List<KeyStroke> getKeys(int count) {
+    if (keys == null && text != null) {
+      return StringHelper.stringToKeys(text.substring(0, Math.min(count, text.length())));
+    }
+    final List<KeyStroke> allKeys = getKeys();
+    return allKeys.size() > count ? allKeys.subList(0, count) : allKeys;
+  }
+
   /**
    * Append the supplied text to any existing text.
    */
   public void addText(@NotNull String text) {
-    addKeys(StringHelper.stringToKeys(text));
+    final String oldText = getText();
+    if (oldText != null) {
+      this.text = oldText + text;
+      this.keys = null;
+    }
+    else {
+      addKeys(StringHelper.stringToKeys(text));
+    }
   }
 
   public void addKeys(@NotNull List<KeyStroke> keys) {
-    this.keys.addAll(keys);
+    final List<KeyStroke> newKeys = new ArrayList<KeyStroke>(getKeys());
+    newKeys.addAll(keys);
+    this.keys = Collections.unmodifiableList(newKeys);
+    this.text = null;
+  }
+
+  /**
+   * @return The text of the keys or null if there is a key without a character
+   */
+  @Nullable
+  private static String keysToText(@NotNull List<KeyStroke> keys) {
+    final StringBuilder builder = new StringBuilder(keys.size());
+    for (KeyStroke key : keys) {
+      final char c = key.getKeyChar();
+      if (c == KeyEvent.CHAR_UNDEFINED) {
+        return null;
+      }
+      builder.append(c);
+    }
+    return builder.toString();
   }
 
   public static class KeySorter<V> implements Comparator<V> {
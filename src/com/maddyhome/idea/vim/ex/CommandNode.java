@@ -21,12 +21,15 @@ package com.maddyhome.idea.vim.ex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import gnu.trove.TIntObjectHashMap;
 
 /**
- *
+ * A node of the Ex command name trie. Children for ASCII characters, which covers every built-in command name, are
+ * looked up by indexing an array.
  */
 public class CommandNode {
+  private static final int ASCII_SIZE = 128;
+
   public CommandNode() {
     command = null;
   }
@@ -38,13 +41,28 @@ public class CommandNode {
   @NotNull
   public CommandNode addChild(char ch, CommandHandler command) {
     CommandNode res = new CommandNode(command);
-    nodes.put(ch, res);
+    if (ch < ASCII_SIZE) {
+      if (asciiNodes == null) {
+        asciiNodes = new CommandNode[ASCII_SIZE];
+      }
+      asciiNodes[ch] = res;
+    }
+    else {
+      if (otherNodes == null) {
+        otherNodes = new TIntObjectHashMap<CommandNode>();
+      }
+      otherNodes.put(ch, res);
+    }
 
     return res;
   }
 
+  @Nullable
   public CommandNode getChild(char ch) {
-    return nodes.get(ch);
+    if (ch < ASCII_SIZE) {
+      return asciiNodes != null ? asciiNodes[ch] : null;
+    }
+    return otherNodes != null ? otherNodes.get(ch) : null;
   }
 
   @Nullable
@@ -57,5 +75,6 @@ public class CommandNode {
   }
 
   @Nullable private CommandHandler command;
-  @NotNull private final HashMap<Character, CommandNode> nodes = new HashMap<Character, CommandNode>();
+  @Nullable private CommandNode[] asciiNodes = null;
+  @Nullable private TIntObjectHashMap<CommandNode> otherNodes = null;
 }
@@ -29,9 +29,15 @@ import com.maddyhome.idea.vim.ex.range.AbstractRange;
 import com.maddyhome.idea.vim.group.HistoryGroup;
 import com.maddyhome.idea.vim.helper.MessageHelper;
 import com.maddyhome.idea.vim.helper.Msg;
+import com.maddyhome.idea.vim.helper.Profiler;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,6 +51,10 @@ public class CommandParser {
   public static final int RES_READONLY = 1;
   public static final int RES_DONT_REOPEN = 4;
   public static final Pattern TRIM_WHITESPACE = Pattern.compile("[ \\t]*(.*)[ \\t\\n\\r]+", Pattern.DOTALL);
+  /**
+   * The number of distinct command lines kept parsed, enough for the commands of a typical vimrc
+   */
+  public static final int PARSE_CACHE_SIZE = 500;
 
   /**
    * There is only one parser.
@@ -65,7 +75,8 @@ public class CommandParser {
   }
 
   /**
-   * Registers all the supported Ex commands
+   * Registers all the supported Ex commands. It is called on the first lookup of a command handler, so the handlers
+   * aren't created at startup unless there is a vimrc file to run.
    */
   public void registerHandlers() {
     if (registered) return;
@@ -99,6 +110,7 @@ public class CommandParser {
     new NoHLSearchHandler();
     new OnlyHandler();
     new PreviousFileHandler();
+    new ProfileHandler();
     new PromptFindHandler();
     new PromptReplaceHandler();
     new PutLinesHandler();
@@ -110,6 +122,7 @@ public class CommandParser {
     new SelectFirstFileHandler();
     new SelectLastFileHandler();
     new SetHandler();
+    new SetLocalHandler();
     new ShiftLeftHandler();
     new ShiftRightHandler();
     new SourceHandler();
@@ -117,6 +130,13 @@ public class CommandParser {
     new SplitHandler();
     new SubstituteHandler();
     new UndoHandler();
+    new EarlierHandler();
+    new LaterHandler();
+    new VimGrepHandler();
+    new QuickFixNextHandler();
+    new QuickFixPreviousHandler();
+    new QuickFixSelectHandler();
+    new QuickFixOpenHandler();
     new WriteAllHandler();
     new WriteHandler();
     new WriteNextFileHandler();
@@ -138,6 +158,11 @@ public class CommandParser {
    * @throws ExException if any part of the command was invalid
    */
   public boolean processLastCommand(@NotNull Editor editor, @NotNull DataContext context, int count) throws ExException {
+    // The last saved command is still parsed, no need to restore it from the register
+    if (lastText != null && lastResult != null) {
+      processCommand(editor, context, lastText, lastResult, count);
+      return true;
+    }
     final Register reg = VimPlugin.getRegister().getRegister(':');
     if (reg != null) {
       final String text = reg.getText();
@@ -167,12 +192,18 @@ public class CommandParser {
       return result | RES_EMPTY;
     }
 
+    return processCommand(editor, context, cmd, getParseResult(cmd), count);
+  }
+
+  private int processCommand(@NotNull Editor editor, @NotNull DataContext context, @NotNull String cmd,
+                             @NotNull ParseResult parsed, int count) throws ExException {
+    int result = 0;
+
     // Save the command history
     VimPlugin.getHistory().addEntry(HistoryGroup.COMMAND, cmd);
 
-    // Parse the command
-    final ExCommand command = parse(cmd);
-    final CommandHandler handler = getCommandHandler(command);
+    final ExCommand command = parsed.createCommand();
+    final CommandHandler handler = parsed.getHandler();
 
     if (handler == null) {
       final String message = MessageHelper.message(Msg.NOT_EX_CMD, command.getCommand());
@@ -185,10 +216,22 @@ public class CommandParser {
     }
 
     // Run the command
+    final long startTime = Profiler.start();
     boolean ok = handler.process(editor, context, command, count);
+    if (Profiler.isEnabled()) {
+      Profiler.stop(Profiler.EX, getProfilerName(handler), startTime);
+    }
     if (ok && (handler.getArgFlags() & CommandHandler.DONT_SAVE_LAST) == 0) {
       VimPlugin.getRegister().storeTextInternal(editor, new TextRange(-1, -1), cmd,
                                                                   SelectionType.CHARACTER_WISE, ':', false);
+      if (parsed.isCacheable()) {
+        lastText = cmd;
+        lastResult = parsed;
+      }
+      else {
+        lastText = null;
+        lastResult = null;
+      }
     }
 
     if ((handler.getArgFlags() & CommandHandler.DONT_REOPEN) != 0) {
@@ -198,12 +241,23 @@ public class CommandParser {
     return result;
   }
 
+  @NotNull
+  private static String getProfilerName(@NotNull CommandHandler handler) {
+    final String required = handler.getRequired();
+    return required != null ? required + handler.getOptional() : handler.getClass().getSimpleName();
+  }
+
   @Nullable
   public CommandHandler getCommandHandler(@NotNull ExCommand command) {
-    final String cmd = command.getCommand();
+    return getCommandHandler(command.getCommand());
+  }
+
+  @Nullable
+  private CommandHandler getCommandHandler(@NotNull String cmd) {
+    registerHandlers();
     // If there is no command, just a range, use the 'goto line' handler
     if (cmd.length() == 0) {
-      return new GotoLineHandler();
+      return gotoLineHandler;
     }
     // See if the user entered a supported command by checking each character entered
     CommandNode node = root;
@@ -225,12 +279,40 @@ public class CommandParser {
    */
   @NotNull
   public ExCommand parse(@NotNull String cmd) throws ExException {
+    return getParseResult(cmd).createCommand();
+  }
+
+  /**
+   * Gets the parse result for the text entered by the user, parsing it only if the same text hasn't been parsed
+   * before.
+   *
+   * @param cmd The user entered text
+   * @return The parse result
+   * @throws ExException if the text is syntactically incorrect
+   */
+  @NotNull
+  private ParseResult getParseResult(@NotNull String cmd) throws ExException {
+    if (cmd.equals(lastText) && lastResult != null) {
+      return lastResult;
+    }
+    ParseResult res = parseCache.get(cmd);
+    if (res == null) {
+      res = parseText(cmd);
+      if (res.isCacheable()) {
+        parseCache.put(cmd, res);
+      }
+    }
+    return res;
+  }
+
+  @NotNull
+  private ParseResult parseText(@NotNull String cmd) throws ExException {
     // This is a complicated state machine that should probably be rewritten
     if (logger.isDebugEnabled()) {
       logger.debug("processing `" + cmd + "'");
     }
     int state = STATE_START;
-    Ranges ranges = new Ranges(); // The list of ranges
+    List<Range> ranges = new ArrayList<Range>(); // The list of ranges
     StringBuilder command = new StringBuilder(); // The command
     StringBuilder argument = new StringBuilder(); // The command's argument(s)
     StringBuffer location = null; // The current range text
@@ -241,6 +323,7 @@ public class CommandParser {
     char patternType = 0; // ? or /
     int backCount = 0; // Number of backslashes in a row in a pattern
     boolean inBrackets = false; // If inside [ ] range in a pattern
+    boolean cacheable = true; // False if the ranges depend on something other than the text
     String error = "";
 
     // Loop through each character. Treat the end of the string as a newline character
@@ -308,6 +391,7 @@ public class CommandParser {
             }
             else if (ch == '\\') {
               location.append(ch);
+              cacheable = false;
               state = STATE_RANGE_SHORT_PATTERN;
               reprocess = false;
             }
@@ -430,7 +514,7 @@ public class CommandParser {
               reprocess = false;
               break;
             }
-            ranges.addRange(range);
+            Collections.addAll(ranges, range);
             // Could there be more ranges - nope - at end, start command
             if (ch == ':' || ch == '\n') {
               state = STATE_COMMAND;
@@ -547,7 +631,9 @@ public class CommandParser {
     if (matcher.matches()) {
       argumentString = matcher.group(1);
     }
-    return new ExCommand(ranges, command.toString(), argumentString);
+    final String commandString = command.toString();
+    return new ParseResult(ranges.toArray(new Range[ranges.size()]), commandString, argumentString,
+                           getCommandHandler(commandString), cacheable);
   }
 
   /**
@@ -561,6 +647,11 @@ public class CommandParser {
     if (names == null) {
       return;
     }
+    // Parse results store the handlers found at the time of parsing
+    parseCache.clear();
+    lastText = null;
+    lastResult = null;
+
     for (CommandName name : names) {
       CommandNode node = root;
       String text = name.getRequired();
@@ -601,6 +692,15 @@ public class CommandParser {
   }
 
   @NotNull private final CommandNode root = new CommandNode();
+  @NotNull private final CommandHandler gotoLineHandler = new GotoLineHandler();
+  @NotNull private final Map<String, ParseResult> parseCache = new LinkedHashMap<String, ParseResult>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, ParseResult> eldest) {
+      return size() > PARSE_CACHE_SIZE;
+    }
+  };
+  @Nullable private String lastText = null;
+  @Nullable private ParseResult lastResult = null;
   private boolean registered = false;
 
   private static CommandParser ourInstance;
@@ -25,6 +25,8 @@ import com.maddyhome.idea.vim.ui.ExOutputPanel;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Iterator;
+
 /**
  * @author vlan
  */
@@ -53,6 +55,26 @@ public class ExOutputModel {
     }
   }
 
+  /**
+   * Shows the lines produced by the iterator. The panel takes the lines only as they are scrolled into view, so a long
+   * listing can be shown without formatting all of it first.
+   * <p/>
+   * The text of the lines is kept for {@link #getText()} only in the unit test mode.
+   */
+  public void output(@NotNull Iterator<String> lines) {
+    if (ApplicationManager.getApplication().isUnitTestMode()) {
+      final StringBuilder text = new StringBuilder();
+      while (lines.hasNext()) {
+        text.append(lines.next()).append("\n");
+      }
+      myText = text.toString();
+    }
+    else {
+      myText = null;
+      ExOutputPanel.getInstance(myEditor).setLines(lines);
+    }
+  }
+
   public void clear() {
     myText = null;
     if (!ApplicationManager.getApplication().isUnitTestMode()) {
@@ -19,19 +19,39 @@
 package com.maddyhome.idea.vim.ex;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- *
+ * The result of parsing the text of an Ex command. Unlike {@link ExCommand} it holds no per-execution state, so it is
+ * cached by the parser and turned into a fresh command each time the same text is run.
  */
 public class ParseResult {
-  @NotNull private final Ranges ranges;
+  @NotNull private final Range[] ranges;
   @NotNull private final String command;
   @NotNull private final String argument;
+  @Nullable private final CommandHandler handler;
+  private final boolean cacheable;
 
-  public ParseResult(@NotNull Ranges ranges, @NotNull String command, @NotNull String argument) {
+  public ParseResult(@NotNull Range[] ranges, @NotNull String command, @NotNull String argument,
+                     @Nullable CommandHandler handler, boolean cacheable) {
     this.ranges = ranges;
     this.argument = argument;
     this.command = command;
+    this.handler = handler;
+    this.cacheable = cacheable;
+  }
+
+  /**
+   * Creates a new command for running this parse result. Ranges and arguments are shared, range line numbers are
+   * evaluated by the new command.
+   *
+   * @return The new command
+   */
+  @NotNull
+  public ExCommand createCommand() {
+    final Ranges res = new Ranges();
+    res.addRange(ranges);
+    return new ExCommand(res, command, argument);
   }
 
   @NotNull
@@ -45,7 +65,27 @@ public class ParseResult {
   }
 
   @NotNull
-  public Ranges getRanges() {
+  public Range[] getRanges() {
     return ranges;
   }
+
+  /**
+   * Gets the handler registered for the command name at the time of parsing
+   *
+   * @return The handler or null if there is no such command
+   */
+  @Nullable
+  public CommandHandler getHandler() {
+    return handler;
+  }
+
+  /**
+   * Can this result be reused for the same command text? Ranges like "\/" are bound to the last search pattern
+   * while parsing, so they have to be parsed again every time.
+   *
+   * @return True if the result only depends on the command text
+   */
+  public boolean isCacheable() {
+    return cacheable;
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.ex.handler;
+
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.editor.Editor;
+import com.maddyhome.idea.vim.ex.CommandHandler;
+import com.maddyhome.idea.vim.ex.CommandName;
+import com.maddyhome.idea.vim.ex.ExCommand;
+import com.maddyhome.idea.vim.ex.ExException;
+import com.maddyhome.idea.vim.helper.MessageHelper;
+import com.maddyhome.idea.vim.helper.Msg;
+import com.maddyhome.idea.vim.helper.UndoRedoHelper;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Goes to an older text state, by a count of changes or by a time like 10s, 5m, 2h or 1d
+ */
+public class EarlierHandler extends CommandHandler {
+  public EarlierHandler() {
+    super(new CommandName[]{
+      new CommandName("ea", "rlier")
+    }, RANGE_FORBIDDEN | ARGUMENT_OPTIONAL | WRITABLE);
+  }
+
+  public boolean execute(@NotNull Editor editor, @NotNull DataContext context, @NotNull ExCommand cmd) throws ExException {
+    return travel(context, cmd.getArgument(), true);
+  }
+
+  /**
+   * Undoes or redoes the changes given by the argument of :earlier or :later
+   */
+  static boolean travel(@NotNull DataContext context, @NotNull String argument, boolean undo) throws ExException {
+    final String arg = argument.trim();
+    if (arg.isEmpty()) {
+      return undo ? UndoRedoHelper.undo(context, 1) : UndoRedoHelper.redo(context, 1);
+    }
+    final Matcher matcher = ARGUMENT.matcher(arg);
+    if (!matcher.matches()) {
+      throw new ExException(MessageHelper.message(Msg.e_invarg, arg));
+    }
+    final long count;
+    try {
+      count = Long.parseLong(matcher.group(1));
+    }
+    catch (NumberFormatException e) {
+      throw new ExException(MessageHelper.message(Msg.e_invarg, arg));
+    }
+    final String unit = matcher.group(2);
+    if (unit.isEmpty()) {
+      final int steps = (int)Math.min(count, Integer.MAX_VALUE);
+      return undo ? UndoRedoHelper.undo(context, steps) : UndoRedoHelper.redo(context, steps);
+    }
+    final long millis;
+    switch (unit.charAt(0)) {
+      case 's':
+        millis = count * 1000L;
+        break;
+      case 'm':
+        millis = count * 60 * 1000L;
+        break;
+      case 'h':
+        millis = count * 60 * 60 * 1000L;
+        break;
+      default:
+        millis = count * 24 * 60 * 60 * 1000L;
+    }
+    return undo ? UndoRedoHelper.undoTime(context, millis) : UndoRedoHelper.redoTime(context, millis);
+  }
+
+  private static final Pattern ARGUMENT = Pattern.compile("(\\d+)([smhd]?)");
+}
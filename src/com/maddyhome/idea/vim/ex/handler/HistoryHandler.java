@@ -18,6 +18,8 @@
 
 package com.maddyhome.idea.vim.ex.handler;
 
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
 import com.intellij.openapi.actionSystem.DataContext;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
@@ -29,6 +31,8 @@ import com.maddyhome.idea.vim.ex.ExOutputModel;
 import com.maddyhome.idea.vim.group.HistoryGroup;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -126,51 +130,50 @@ public class HistoryHandler extends CommandHandler {
       return false;
     }
 
-    StringBuilder res = new StringBuilder();
+    Iterator<String> res = Collections.emptyIterator();
     switch (key.charAt(0)) {
       case 'c':
-        res.append(processKey(HistoryGroup.COMMAND, f, l));
+        res = processKey(HistoryGroup.COMMAND, f, l);
         break;
       case 's':
-        res.append(processKey(HistoryGroup.SEARCH, f, l));
+        res = processKey(HistoryGroup.SEARCH, f, l);
         break;
       case 'e':
-        res.append(processKey(HistoryGroup.EXPRESSION, f, l));
+        res = processKey(HistoryGroup.EXPRESSION, f, l);
         break;
       case 'i':
-        res.append(processKey(HistoryGroup.INPUT, f, l));
+        res = processKey(HistoryGroup.INPUT, f, l);
         break;
       case 'a':
-        res.append(processKey(HistoryGroup.COMMAND, f, l));
-        res.append(processKey(HistoryGroup.SEARCH, f, l));
-        res.append(processKey(HistoryGroup.EXPRESSION, f, l));
-        res.append(processKey(HistoryGroup.INPUT, f, l));
+        res = Iterators.concat(processKey(HistoryGroup.COMMAND, f, l), processKey(HistoryGroup.SEARCH, f, l),
+                               processKey(HistoryGroup.EXPRESSION, f, l), processKey(HistoryGroup.INPUT, f, l));
         break;
     }
 
-    ExOutputModel.getInstance(editor).output(res.toString());
+    ExOutputModel.getInstance(editor).output(res);
 
     return true;
   }
 
+  /**
+   * The lines of the entries are formatted only when the output panel shows them
+   */
   @NotNull
-  private String processKey(String key, int start, int end) {
+  private Iterator<String> processKey(String key, int start, int end) {
     if (logger.isDebugEnabled()) {
       logger.debug("process " + key + " " + start + "," + end);
     }
 
-    StringBuilder res = new StringBuilder();
-
-    res.append("      #  ").append(key).append(" ").append("history\n");
-
-    String spaces = "       ";
+    final String spaces = "       ";
     List<HistoryGroup.HistoryEntry> entries = VimPlugin.getHistory().getEntries(key, start, end);
-    for (HistoryGroup.HistoryEntry entry : entries) {
-      String num = Integer.toString(entry.getNumber());
-      res.append(spaces.substring(num.length())).append(num).append("  ").append(entry.getEntry()).append("\n");
-    }
-
-    return res.toString();
+    return Iterators.concat(Iterators.singletonIterator("      #  " + key + " history"),
+                            Iterators.transform(entries.iterator(), new Function<HistoryGroup.HistoryEntry, String>() {
+                              @Override
+                              public String apply(HistoryGroup.HistoryEntry entry) {
+                                String num = Integer.toString(entry.getNumber());
+                                return spaces.substring(num.length()) + num + "  " + entry.getEntry();
+                              }
+                            }));
   }
 
   private static final Logger logger = Logger.getInstance(HistoryHandler.class.getName());
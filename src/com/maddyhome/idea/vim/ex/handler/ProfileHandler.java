@@ -0,0 +1,86 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.ex.handler;
+
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.editor.Editor;
+import com.maddyhome.idea.vim.ex.*;
+import com.maddyhome.idea.vim.helper.Profiler;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Controls the latency profiler. Supported forms are ":profile start", ":profile stop", ":profile clear",
+ * ":profile dump {fname}" and ":profile" that shows the collected data.
+ */
+public class ProfileHandler extends CommandHandler {
+  public ProfileHandler() {
+    super("prof", "ile", RANGE_FORBIDDEN | ARGUMENT_OPTIONAL | DONT_SAVE_LAST);
+  }
+
+  public boolean execute(@NotNull Editor editor, @NotNull DataContext context, @NotNull ExCommand cmd) throws ExException {
+    final String arg = cmd.getArgument().trim();
+    final int space = arg.indexOf(' ');
+    final String subCommand = space >= 0 ? arg.substring(0, space) : arg;
+    final String fileName = space >= 0 ? arg.substring(space + 1).trim() : "";
+
+    if (subCommand.length() == 0) {
+      ExOutputModel.getInstance(editor).output(Profiler.report());
+    }
+    else if (subCommand.equals("start")) {
+      Profiler.clear();
+      Profiler.setEnabled(true);
+    }
+    else if (subCommand.equals("stop")) {
+      Profiler.setEnabled(false);
+    }
+    else if (subCommand.equals("clear")) {
+      Profiler.clear();
+    }
+    else if (subCommand.equals("dump")) {
+      if (fileName.length() == 0) {
+        throw new MissingArgumentException();
+      }
+      try {
+        Profiler.dump(new File(expandUser(fileName)));
+      }
+      catch (IOException e) {
+        throw new ExException(e.getMessage());
+      }
+    }
+    else {
+      throw new InvalidArgumentException("Invalid argument: " + arg);
+    }
+
+    return true;
+  }
+
+  @NotNull
+  private static String expandUser(@NotNull String path) {
+    if (path.startsWith("~")) {
+      final String home = System.getProperty("user.home");
+      if (home != null) {
+        path = home + path.substring(1);
+      }
+    }
+    return path;
+  }
+}
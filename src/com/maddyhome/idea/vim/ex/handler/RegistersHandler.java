@@ -18,14 +18,18 @@
 
 package com.maddyhome.idea.vim.ex.handler;
 
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
 import com.intellij.openapi.actionSystem.DataContext;
 import com.intellij.openapi.editor.Editor;
 import com.maddyhome.idea.vim.VimPlugin;
 import com.maddyhome.idea.vim.common.Register;
 import com.maddyhome.idea.vim.ex.*;
+import com.maddyhome.idea.vim.helper.EditorHelper;
 import com.maddyhome.idea.vim.helper.StringHelper;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -42,19 +46,24 @@ public class RegistersHandler extends CommandHandler {
   public boolean execute(@NotNull final Editor editor, @NotNull DataContext context, @NotNull ExCommand cmd) throws ExException {
     List<Register> registers = VimPlugin.getRegister().getRegisters();
 
-    StringBuilder text = new StringBuilder();
-    text.append("--- Registers ---\n");
-    for (Register reg : registers) {
-      text.append("\"");
-      text.append(reg.getName());
+    // A register may hold a whole file, only the part that fits into the line is shown
+    final int width = Math.max(EditorHelper.getScreenWidth(editor) - PREFIX_LENGTH, MIN_PREVIEW_LENGTH);
+    final Iterator<String> lines = Iterators.transform(registers.iterator(), new Function<Register, String>() {
+      @Override
+      public String apply(Register reg) {
+        String preview = StringHelper.toKeyNotation(reg.getKeys(width));
+        if (preview.length() > width) {
+          preview = preview.substring(0, width);
+        }
+        return "\"" + reg.getName() + "   " + preview;
+      }
+    });
 
-      text.append("   ");
-      text.append(StringHelper.toKeyNotation(reg.getKeys()));
-      text.append("\n");
-    }
-
-    ExOutputModel.getInstance(editor).output(text.toString());
+    ExOutputModel.getInstance(editor).output(Iterators.concat(Iterators.singletonIterator("--- Registers ---"), lines));
 
     return true;
   }
+
+  private static final int PREFIX_LENGTH = 5;
+  private static final int MIN_PREVIEW_LENGTH = 20;
 }
@@ -0,0 +1,51 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.ex.handler;
+
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.editor.Editor;
+import com.maddyhome.idea.vim.ex.CommandHandler;
+import com.maddyhome.idea.vim.ex.ExCommand;
+import com.maddyhome.idea.vim.ex.ExException;
+import com.maddyhome.idea.vim.ex.vimscript.VimScriptCommandHandler;
+import com.maddyhome.idea.vim.option.Options;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sets the values of window-local options for the current editor. Options without a local value are set globally.
+ */
+public class SetLocalHandler extends CommandHandler implements VimScriptCommandHandler {
+  public SetLocalHandler() {
+    super("setl", "ocal", ARGUMENT_OPTIONAL);
+  }
+
+  public boolean execute(@NotNull Editor editor, @NotNull DataContext context, @NotNull ExCommand cmd) throws ExException {
+    return parseOptionLine(editor, cmd, true);
+  }
+
+  @Override
+  public void execute(@NotNull ExCommand cmd) throws ExException {
+    parseOptionLine(null, cmd, false);
+  }
+
+  private boolean parseOptionLine(@Nullable Editor editor, @NotNull ExCommand cmd, boolean failOnBad) {
+    return Options.getInstance().parseOptionLine(editor, cmd.getArgument(), failOnBad, true);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.ex.handler;
+
+import com.intellij.openapi.actionSystem.DataContext;
+import com.intellij.openapi.editor.Editor;
+import com.maddyhome.idea.vim.VimPlugin;
+import com.maddyhome.idea.vim.ex.CommandHandler;
+import com.maddyhome.idea.vim.ex.ExCommand;
+import com.maddyhome.idea.vim.ex.ExException;
+import com.maddyhome.idea.vim.helper.MessageHelper;
+import com.maddyhome.idea.vim.helper.Msg;
+import com.maddyhome.idea.vim.regexp.CharPointer;
+import com.maddyhome.idea.vim.regexp.RegExp;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * :vimgrep /{pattern}/[g][j] {file} ...
+ */
+public class VimGrepHandler extends CommandHandler {
+  public VimGrepHandler() {
+    super("vim", "grep", RANGE_FORBIDDEN | ARGUMENT_REQUIRED | DONT_REOPEN);
+  }
+
+  @Override
+  public boolean execute(@NotNull Editor editor, @NotNull DataContext context,
+                         @NotNull ExCommand cmd) throws ExException {
+    final String arg = cmd.getArgument().trim();
+    if (arg.isEmpty()) {
+      throw new ExException(MessageHelper.message(Msg.E683));
+    }
+    final String pattern;
+    int pos;
+    final char delimiter = arg.charAt(0);
+    if (Character.isLetterOrDigit(delimiter) || delimiter == '_') {
+      // Without delimiters the pattern ends at the first white space and there are no flags
+      pos = 0;
+      while (pos < arg.length() && !Character.isWhitespace(arg.charAt(pos))) {
+        pos++;
+      }
+      pattern = arg.substring(0, pos);
+    }
+    else {
+      final CharPointer end = RegExp.skip_regexp(new CharPointer(new StringBuffer(arg)).ref(1), delimiter, true);
+      if (end.charAt() != delimiter) {
+        throw new ExException(MessageHelper.message(Msg.E683));
+      }
+      pattern = arg.substring(1, end.pointer());
+      pos = end.pointer() + 1;
+    }
+
+    boolean all = false;
+    boolean jump = true;
+    for (; pos < arg.length() && !Character.isWhitespace(arg.charAt(pos)); pos++) {
+      final char flag = arg.charAt(pos);
+      if (flag == 'g') {
+        all = true;
+      }
+      else if (flag == 'j') {
+        jump = false;
+      }
+      else {
+        throw new ExException(MessageHelper.message(Msg.e_trailing));
+      }
+    }
+
+    final List<String> files = new ArrayList<String>();
+    for (String file : arg.substring(pos).trim().split("\\s+")) {
+      if (!file.isEmpty()) {
+        files.add(file);
+      }
+    }
+    if (files.isEmpty()) {
+      throw new ExException(MessageHelper.message(Msg.E683));
+    }
+
+    return VimPlugin.getSearch().vimgrep(editor, pattern, all, jump, files, ":" + cmd.getCommand() + " " + arg);
+  }
+}
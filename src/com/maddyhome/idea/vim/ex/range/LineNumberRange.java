@@ -64,10 +64,10 @@ public class LineNumberRange extends AbstractRange {
    */
   protected int getRangeLine(@NotNull Editor editor, DataContext context, boolean lastZero) {
     if (line == CURRENT_LINE) {
-      line = editor.getCaretModel().getLogicalPosition().line;
+      return editor.getCaretModel().getLogicalPosition().line;
     }
     else if (line == LAST_LINE) {
-      line = EditorHelper.getLineCount(editor) - 1;
+      return EditorHelper.getLineCount(editor) - 1;
     }
 
     return line;
@@ -79,5 +79,5 @@ public class LineNumberRange extends AbstractRange {
     return "LineNumberRange[" + "line=" + line + ", " + super.toString() + "]";
   }
 
-  private int line;
+  private final int line;
 }
@@ -24,6 +24,7 @@ import com.intellij.openapi.actionSystem.ActionManager;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.DataContext;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.command.UndoConfirmationPolicy;
@@ -396,7 +397,7 @@ public class ChangeGroup {
       // <Enter> is added to strokes as an action during processing in order to indent code properly in the repeat
       // command
       if (newFragment.startsWith("\n") && newFragment.trim().isEmpty()) {
-        strokes.addAll(getAdjustCaretActions(e));
+        addCaretMove(e);
         oldOffset = -1;
         return;
       }
@@ -406,36 +407,98 @@ public class ChangeGroup {
         return;
       }
 
-      strokes.addAll(getAdjustCaretActions(e));
+      if (oldFragmentLength > 0 && newFragmentLength == 0 && isBackspace(e, oldFragmentLength)) {
+        final int count = ((DeleteRun)strokes.remove(strokes.size() - 1)).count + oldFragmentLength;
+        strokes.set(strokes.size() - 1, new CaretMoveRun(-count));
+        strokes.add(new DeleteRun(count));
+        oldOffset = e.getOffset();
+        return;
+      }
+
+      addCaretMove(e);
 
       if (oldFragmentLength > 0) {
-        final AnAction editorDelete = ActionManager.getInstance().getAction("EditorDelete");
-        for (int i = 0; i < oldFragmentLength; i++) {
-          strokes.add(editorDelete);
+        final Object last = getLastStroke();
+        if (last instanceof DeleteRun) {
+          strokes.set(strokes.size() - 1, new DeleteRun(((DeleteRun)last).count + oldFragmentLength));
+        }
+        else {
+          strokes.add(new DeleteRun(oldFragmentLength));
         }
       }
 
       if (newFragmentLength > 0) {
-        strokes.add(newFragment.toCharArray());
+        final Object last = getLastStroke();
+        if (last instanceof StringBuilder) {
+          ((StringBuilder)last).append(newFragment);
+        }
+        else {
+          strokes.add(new StringBuilder(newFragment));
+        }
       }
       repeatCharsCount += newFragmentLength;
       oldOffset = e.getOffset() + newFragmentLength;
     }
 
-    @NotNull
-    private List<AnAction> getAdjustCaretActions(DocumentEvent e) {
+    private void addCaretMove(@NotNull DocumentEvent e) {
       final int delta = e.getOffset() - oldOffset;
       if (oldOffset >= 0 && delta != 0) {
-        final List<AnAction> positionCaretActions = new ArrayList<AnAction>();
-        final String motionName = delta < 0 ? "VimMotionLeft" : "VimMotionRight";
-        final AnAction action = ActionManager.getInstance().getAction(motionName);
-        final int count = Math.abs(delta);
-        for (int i = 0; i < count; i++) {
-          positionCaretActions.add(action);
+        final Object last = getLastStroke();
+        if (last instanceof CaretMoveRun) {
+          final int total = ((CaretMoveRun)last).delta + delta;
+          if (total != 0) {
+            strokes.set(strokes.size() - 1, new CaretMoveRun(total));
+          }
+          else {
+            strokes.remove(strokes.size() - 1);
+          }
+        }
+        else {
+          strokes.add(new CaretMoveRun(delta));
         }
-        return positionCaretActions;
       }
-      return Collections.emptyList();
+    }
+
+    /**
+     * Checks if the change deletes the characters right before the previous deletion, e.g. a repeated backspace. Such
+     * deletions are merged into one run of moving the caret back and deleting.
+     */
+    private boolean isBackspace(@NotNull DocumentEvent e, int length) {
+      final int size = strokes.size();
+      if (oldOffset < 0 || e.getOffset() != oldOffset - length || size < 2) {
+        return false;
+      }
+      final Object last = strokes.get(size - 1);
+      final Object previous = strokes.get(size - 2);
+      return last instanceof DeleteRun && previous instanceof CaretMoveRun &&
+             ((CaretMoveRun)previous).delta == -((DeleteRun)last).count;
+    }
+
+    @Nullable
+    private Object getLastStroke() {
+      return strokes.isEmpty() ? null : strokes.get(strokes.size() - 1);
+    }
+  }
+
+  /**
+   * Moves the caret by the offset delta when repeating an insert
+   */
+  private static class CaretMoveRun {
+    private final int delta;
+
+    public CaretMoveRun(int delta) {
+      this.delta = delta;
+    }
+  }
+
+  /**
+   * Deletes the characters after the caret when repeating an insert
+   */
+  private static class DeleteRun {
+    private final int count;
+
+    public DeleteRun(int count) {
+      this.count = count;
     }
   }
 
@@ -494,6 +557,14 @@ public class ChangeGroup {
     if (lastStrokes == null) {
       return;
     }
+    // Plain text is inserted with a single document change
+    final String text = getPlainText(lastStrokes);
+    if (text != null) {
+      if (count > 0 && text.length() > 0) {
+        insertText(editor, editor.getCaretModel().getOffset(), StringUtil.repeat(text, count));
+      }
+      return;
+    }
     for (int i = 0; i < count; i++) {
       // Treat other keys special by performing the appropriate action they represent in insert/replace mode
       for (Object lastStroke : lastStrokes) {
@@ -501,14 +572,39 @@ public class ChangeGroup {
           KeyHandler.executeAction((AnAction)lastStroke, context);
           strokes.add(lastStroke);
         }
-        else if (lastStroke instanceof char[]) {
-          final char[] chars = (char[])lastStroke;
-          insertText(editor, editor.getCaretModel().getOffset(), new String(chars));
+        else if (lastStroke instanceof String) {
+          insertText(editor, editor.getCaretModel().getOffset(), (String)lastStroke);
+        }
+        else if (lastStroke instanceof CaretMoveRun) {
+          final int offset = editor.getCaretModel().getOffset() + ((CaretMoveRun)lastStroke).delta;
+          editor.getCaretModel().moveToOffset(Math.max(0, Math.min(offset, editor.getDocument().getTextLength())));
+        }
+        else if (lastStroke instanceof DeleteRun) {
+          final int start = editor.getCaretModel().getOffset();
+          final int end = Math.min(start + ((DeleteRun)lastStroke).count, editor.getDocument().getTextLength());
+          if (end > start) {
+            editor.getDocument().deleteString(start, end);
+          }
         }
       }
     }
   }
 
+  /**
+   * @return The concatenated text if all the strokes are inserted text, null if there are actions, moves or deletes
+   */
+  @Nullable
+  private static String getPlainText(@NotNull List<Object> strokes) {
+    final StringBuilder builder = new StringBuilder();
+    for (Object stroke : strokes) {
+      if (!(stroke instanceof String)) {
+        return null;
+      }
+      builder.append((String)stroke);
+    }
+    return builder.toString();
+  }
+
   /**
    * Terminate insert/replace mode after the user presses Escape or Ctrl-C
    *
@@ -532,8 +628,11 @@ public class ChangeGroup {
       documentListener = null;
     }
 
-    // Save off current list of keystrokes
-    lastStrokes = new ArrayList<Object>(strokes);
+    // Save off current list of keystrokes, the inserted text is not appended to anymore
+    lastStrokes = new ArrayList<Object>(strokes.size());
+    for (Object stroke : strokes) {
+      lastStrokes.add(stroke instanceof StringBuilder ? stroke.toString() : stroke);
+    }
 
     // If the insert/replace command was preceded by a count, repeat again N - 1 times
     repeatInsert(editor, context, cnt == 0 ? 0 : cnt - 1, true);
@@ -636,16 +735,19 @@ public class ChangeGroup {
 
     if (key.getKeyChar() != KeyEvent.CHAR_UNDEFINED) {
       final Document doc = editor.getDocument();
-      CommandProcessor.getInstance().executeCommand(editor.getProject(), new Runnable() {
-        @Override
-        public void run() {
-          ApplicationManager.getApplication().runWriteAction(new Runnable() {
-            public void run() {
-              KeyHandler.getInstance().getOriginalHandler().execute(editor, key.getKeyChar(), context);
-            }
-          });
-        }
-      }, "", doc, UndoConfirmationPolicy.DEFAULT, doc);
+      // The typed key command is reused for every typed character unless it is already running
+      final TypedKeyCommand command = typedKeyCommand.editor == null ? typedKeyCommand : new TypedKeyCommand();
+      command.editor = editor;
+      command.context = context;
+      command.c = key.getKeyChar();
+      try {
+        CommandProcessor.getInstance().executeCommand(editor.getProject(), command, "", doc,
+                                                      UndoConfirmationPolicy.DEFAULT, doc);
+      }
+      finally {
+        command.editor = null;
+        command.context = null;
+      }
 
       return true;
     }
@@ -653,6 +755,27 @@ public class ChangeGroup {
     return false;
   }
 
+  /**
+   * Passes a typed character to the original typed action handler within a write action
+   */
+  private static class TypedKeyCommand implements Runnable {
+    @Nullable private Editor editor;
+    @Nullable private DataContext context;
+    private char c;
+
+    @Override
+    public void run() {
+      final Application application = ApplicationManager.getApplication();
+      if (!application.isWriteAccessAllowed()) {
+        application.runWriteAction(this);
+        return;
+      }
+      if (editor != null && context != null) {
+        KeyHandler.getInstance().getOriginalHandler().execute(editor, c, context);
+      }
+    }
+  }
+
   /**
    * This processes all keystrokes in Insert/Replace mode that were converted into Commands. Some of these
    * commands need to be saved off so the inserted/replaced text can be repeated properly later if needed.
@@ -809,28 +932,41 @@ public class ChangeGroup {
    * @return true if able to join the lines, false if not
    */
   private boolean deleteJoinNLines(@NotNull Editor editor, int startLine, int count, boolean spaces) {
-    // start my moving the cursor to the very end of the first line
-    MotionGroup.moveCaret(editor, VimPlugin.getMotion().moveCaretToLineEnd(editor, startLine, true));
-    for (int i = 1; i < count; i++) {
-      int start = VimPlugin.getMotion().moveCaretToLineEnd(editor);
-      int trailingWhitespaceStart = VimPlugin.getMotion().moveCaretToLineEndSkipLeading(editor);
-      boolean hasTrailingWhitespace = start != trailingWhitespaceStart + 1;
-
-      MotionGroup.moveCaret(editor, start);
-      int offset;
+    // The joined text is built in one pass and written back with a single replacement, so that joining thousands of
+    // lines doesn't send an event and move the caret for each of them
+    final int endLine = startLine + count - 1;
+    if (endLine >= EditorHelper.getLineCount(editor)) {
+      return false;
+    }
+    final CharSequence chars = editor.getDocument().getCharsSequence();
+    final boolean joinSpaces = spaces && Options.getInstance().getJoinSpacesOption().getValue();
+    final int lineStartOffset = EditorHelper.getLineStartOffset(editor, startLine);
+    final int startOffset = EditorHelper.getLineEndOffset(editor, startLine, true);
+    final int endOffset = EditorHelper.getLineEndOffset(editor, endLine, true);
+    final StringBuilder joined = new StringBuilder();
+    int lastJoin = 0;
+    for (int line = startLine + 1; line <= endLine; line++) {
+      final char last = joined.length() > 0 ? joined.charAt(joined.length() - 1) :
+                        startOffset > lineStartOffset ? chars.charAt(startOffset - 1) : '\n';
+      final boolean hasTrailingWhitespace = Character.isWhitespace(last);
+      lastJoin = joined.length();
+
+      int offset = EditorHelper.getLineStartOffset(editor, line);
+      final int lineEnd = EditorHelper.getLineEndOffset(editor, line, true);
       if (spaces) {
-        offset = VimPlugin.getMotion().moveCaretToLineStartSkipLeadingOffset(editor, 1);
-      }
-      else {
-        offset = VimPlugin.getMotion().moveCaretToLineStartOffset(editor);
-      }
-      deleteText(editor, new TextRange(editor.getCaretModel().getOffset(), offset), null);
-      if (spaces && !hasTrailingWhitespace) {
-        insertText(editor, start, " ");
-        MotionGroup.moveCaret(editor, VimPlugin.getMotion().moveCaretHorizontal(editor, -1, false));
+        while (offset < lineEnd && Character.isWhitespace(chars.charAt(offset))) {
+          offset++;
+        }
+        if (!hasTrailingWhitespace) {
+          joined.append(joinSpaces && (last == '.' || last == '!' || last == '?') ? "  " : " ");
+        }
       }
+      joined.append(chars, offset, lineEnd);
     }
 
+    replaceText(editor, startOffset, endOffset, joined.toString());
+    MotionGroup.moveCaret(editor, startOffset + lastJoin);
+
     return true;
   }
 
@@ -1746,6 +1882,7 @@ public class ChangeGroup {
   private boolean lastLower = true;
   private Document document;
   @Nullable private DocumentAdapter documentListener;
+  @NotNull private final TypedKeyCommand typedKeyCommand = new TypedKeyCommand();
   private int oldOffset = -1;
 
   private static final Logger logger = Logger.getInstance(ChangeGroup.class.getName());
@@ -24,27 +24,26 @@ import com.maddyhome.idea.vim.ex.ExOutputModel;
 import com.maddyhome.idea.vim.helper.EditorHelper;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class DigraphGroup {
   public DigraphGroup() {
-    loadDigraphs();
   }
 
   public char getDigraph(char ch1, char ch2) {
-    String key = new String(new char[]{ch1, ch2});
-    Character ch = digraphs.get(key);
-    if (ch == null) {
-      key = new String(new char[]{ch2, ch1});
-      ch = digraphs.get(key);
+    loadDigraphs();
+    int index = Arrays.binarySearch(codes, code(ch1, ch2));
+    if (index < 0) {
+      index = Arrays.binarySearch(codes, code(ch2, ch1));
     }
 
-    if (ch == null) {
+    if (index < 0) {
       return ch2;
     }
     else {
-      return ch;
+      return chars[index];
     }
   }
 
@@ -59,12 +58,13 @@ public class DigraphGroup {
   }
 
   private void showDigraphs(@NotNull Editor editor) {
+    loadDigraphs();
     int width = EditorHelper.getScreenWidth(editor);
     if (width < 10) {
       width = 80;
     }
-    int colCount = width / 12;
-    int height = (int)Math.ceil((double)digraphs.size() / (double)colCount);
+    final int colCount = width / 12;
+    final int height = (listing.length + colCount - 1) / colCount;
 
     if (logger.isDebugEnabled()) {
       logger.debug("width=" + width);
@@ -72,63 +72,134 @@ public class DigraphGroup {
       logger.debug("height=" + height);
     }
 
-    StringBuilder res = new StringBuilder();
-    int cnt = 0;
-    for (Character code : keys.keySet()) {
-      String key = keys.get(code);
+    // The rows are rendered from the table as the output panel pages through them
+    ExOutputModel.getInstance(editor).output(new Iterator<String>() {
+      private int row = 0;
 
-      res.append(key);
-      res.append(' ');
-      if (code < 32) {
-        res.append('^');
-        res.append((char)(code + '@'));
-      }
-      else if (code >= 128 && code <= 159) {
-        res.append('~');
-        res.append((char)(code - 128 + '@'));
-      }
-      else {
-        res.append(code);
-        res.append(' ');
-      }
-      res.append(' ');
-      if (code < 0x1000) {
-        res.append('0');
-      }
-      if (code < 0x100) {
-        res.append('0');
+      @Override
+      public boolean hasNext() {
+        return row < height;
       }
-      if (code < 0x10) {
-        res.append('0');
+
+      @Override
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final StringBuilder res = new StringBuilder(colCount * 12);
+        final int end = Math.min(listing.length, (row + 1) * colCount);
+        for (int i = row * colCount; i < end; i++) {
+          appendDigraph(res, listing[i]);
+        }
+        row++;
+        return res.toString();
       }
-      res.append(Integer.toHexString(code));
-      res.append("  ");
 
-      cnt++;
-      if (cnt == colCount) {
-        res.append('\n');
-        cnt = 0;
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
       }
+    });
+  }
+
+  private static void appendDigraph(@NotNull StringBuilder res, int index) {
+    final char code = defaultDigraphs[index + 2];
+    res.append(defaultDigraphs[index]);
+    res.append(defaultDigraphs[index + 1]);
+    res.append(' ');
+    if (code < 32) {
+      res.append('^');
+      res.append((char)(code + '@'));
+    }
+    else if (code >= 128 && code <= 159) {
+      res.append('~');
+      res.append((char)(code - 128 + '@'));
+    }
+    else {
+      res.append(code);
+      res.append(' ');
+    }
+    res.append(' ');
+    if (code < 0x1000) {
+      res.append('0');
+    }
+    if (code < 0x100) {
+      res.append('0');
     }
+    if (code < 0x10) {
+      res.append('0');
+    }
+    res.append(Integer.toHexString(code));
+    res.append("  ");
+  }
 
-    ExOutputModel.getInstance(editor).output(res.toString());
+  private static int code(char ch1, char ch2) {
+    return (ch1 << 16) | ch2;
   }
 
+  /**
+   * Builds the sorted lookup and listing tables from the default digraphs on first use instead of at startup.
+   *
+   * Both tables are sorted by packing the sort key into the high bits of a long and the position in
+   * {@link #defaultDigraphs} into the low bits. When a key is defined more than once the last definition wins.
+   */
   private void loadDigraphs() {
+    if (codes != null) return;
+
+    final int total = defaultDigraphs.length / 3;
+    final long[] byCode = new long[total];
+    final long[] byChar = new long[total];
+    int count = 0;
     for (int i = 0; i < defaultDigraphs.length; i += 3) {
       if (defaultDigraphs[i] != '\0' && defaultDigraphs[i + 1] != '\0') {
-        char ch = defaultDigraphs[i + 2];
-        String key = new String(new char[]{defaultDigraphs[i], defaultDigraphs[i + 1]});
-        digraphs.put(key, ch);
-        keys.put(ch, key);
+        byCode[count] = ((long)code(defaultDigraphs[i], defaultDigraphs[i + 1]) << 32) | i;
+        byChar[count] = ((long)defaultDigraphs[i + 2] << 32) | i;
+        count++;
       }
     }
+    Arrays.sort(byCode, 0, count);
+    Arrays.sort(byChar, 0, count);
+
+    final int[] newCodes = new int[count];
+    final char[] newChars = new char[count];
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      if (i + 1 < count && byCode[i + 1] >>> 32 == byCode[i] >>> 32) {
+        continue;
+      }
+      newCodes[size] = (int)(byCode[i] >>> 32);
+      newChars[size] = defaultDigraphs[(int)byCode[i] + 2];
+      size++;
+    }
+
+    final int[] newListing = new int[count];
+    int listed = 0;
+    for (int i = 0; i < count; i++) {
+      if (i + 1 < count && byChar[i + 1] >>> 32 == byChar[i] >>> 32) {
+        continue;
+      }
+      newListing[listed++] = (int)byChar[i];
+    }
 
     // TODO - load custom digraphs from .ideavimrc
+
+    chars = Arrays.copyOf(newChars, size);
+    listing = Arrays.copyOf(newListing, listed);
+    codes = Arrays.copyOf(newCodes, size);
   }
 
-  @NotNull private final HashMap<String, Character> digraphs = new HashMap<String, Character>(defaultDigraphs.length);
-  @NotNull private final TreeMap<Character, String> keys = new TreeMap<Character, String>();
+  /**
+   * The two characters of each digraph packed into an int, sorted for binary search
+   */
+  private int[] codes;
+  /**
+   * The character entered for the digraph at the same position in {@link #codes}
+   */
+  private char[] chars;
+  /**
+   * Positions in {@link #defaultDigraphs} of the digraphs shown by :digraphs, sorted by the character entered
+   */
+  private int[] listing;
 
   private static final char defaultDigraphs[] = {
     /*
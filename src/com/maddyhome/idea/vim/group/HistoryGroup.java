@@ -20,10 +20,10 @@ package com.maddyhome.idea.vim.group;
 
 import com.intellij.openapi.diagnostic.Logger;
 import com.maddyhome.idea.vim.helper.StringHelper;
-import com.maddyhome.idea.vim.option.NumberOption;
-import com.maddyhome.idea.vim.option.Options;
+import com.maddyhome.idea.vim.option.*;
 import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -36,6 +36,14 @@ public class HistoryGroup {
   public static final String EXPRESSION = "expr";
   public static final String INPUT = "input";
 
+  public HistoryGroup() {
+    VimInfo.addChangeListener(new OptionChangeListener() {
+      public void valueChange(OptionChangeEvent event) {
+        savedHistory = null;
+      }
+    });
+  }
+
   public void addEntry(String key, @NotNull String text) {
     if (logger.isDebugEnabled()) {
       logger.debug("Add entry '" + text + "' to " + key);
@@ -43,6 +51,7 @@ public class HistoryGroup {
 
     HistoryBlock block = blocks(key);
     block.addEntry(text);
+    savedHistory = null;
   }
 
   @NotNull
@@ -99,17 +108,24 @@ public class HistoryGroup {
 
   public void saveData(@NotNull Element element) {
     logger.debug("saveData");
-    Element hist = new Element("history");
+    if (savedHistory == null) {
+      final Element hist = new Element("history");
+
+      saveData(hist, SEARCH, VimInfo.getNumber(VimInfo.SEARCH_HISTORY, -1));
+      saveData(hist, COMMAND, VimInfo.getNumber(VimInfo.COMMAND_HISTORY, -1));
+      saveData(hist, EXPRESSION, -1);
+      saveData(hist, INPUT, -1);
 
-    saveData(hist, SEARCH);
-    saveData(hist, COMMAND);
-    saveData(hist, EXPRESSION);
-    saveData(hist, INPUT);
+      savedHistory = hist;
+    }
 
-    element.addContent(hist);
+    element.addContent(savedHistory.clone());
   }
 
-  private void saveData(@NotNull Element element, String key) {
+  /**
+   * @param maxEntries The number of the most recent entries to save, all entries are saved if negative
+   */
+  private void saveData(@NotNull Element element, String key, int maxEntries) {
     final HistoryBlock block = histories.get(key);
     if (block == null) {
       return;
@@ -117,7 +133,11 @@ public class HistoryGroup {
 
     final Element root = new Element("history-" + key);
 
-    for (HistoryEntry entry : block.getEntries()) {
+    List<HistoryEntry> entries = block.getEntries();
+    if (maxEntries >= 0 && entries.size() > maxEntries) {
+      entries = entries.subList(entries.size() - maxEntries, entries.size());
+    }
+    for (HistoryEntry entry : entries) {
       final Element entryElement = new Element("entry");
       StringHelper.setSafeXmlText(entryElement, entry.getEntry());
       root.addContent(entryElement);
@@ -128,6 +148,7 @@ public class HistoryGroup {
 
   public void readData(@NotNull Element element) {
     logger.debug("readData");
+    savedHistory = null;
     Element hist = element.getChild("history");
     if (hist == null) {
       return;
@@ -213,6 +234,10 @@ public class HistoryGroup {
   }
 
   @NotNull private final Map<String, HistoryBlock> histories = new HashMap<String, HistoryBlock>();
+  /**
+   * The history element of the last saved state, null if the history has changed since then
+   */
+  @Nullable private Element savedHistory = null;
 
   private static final Logger logger = Logger.getInstance(HistoryGroup.class.getName());
 }
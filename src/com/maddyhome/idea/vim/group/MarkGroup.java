@@ -42,6 +42,9 @@ import com.maddyhome.idea.vim.common.TextRange;
 import com.maddyhome.idea.vim.helper.EditorData;
 import com.maddyhome.idea.vim.helper.EditorHelper;
 import com.maddyhome.idea.vim.helper.SearchHelper;
+import com.maddyhome.idea.vim.option.OptionChangeEvent;
+import com.maddyhome.idea.vim.option.OptionChangeListener;
+import com.maddyhome.idea.vim.option.VimInfo;
 import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -69,6 +72,11 @@ public class MarkGroup {
         setMark(editor, '"', editor.getCaretModel().getOffset());
       }
     }, ApplicationManager.getApplication());
+    VimInfo.addChangeListener(new OptionChangeListener() {
+      public void valueChange(OptionChangeEvent event) {
+        marksChanged();
+      }
+    });
   }
 
   /**
@@ -116,6 +124,7 @@ public class MarkGroup {
         mark = (Mark)fmarks.get(new Character(ch));
         if (mark != null && mark.isClear()) {
           fmarks.remove(new Character(ch));
+          marksChanged();
           mark = null;
         }
       }
@@ -125,6 +134,7 @@ public class MarkGroup {
       mark = globalMarks.get(new Character(ch));
       if (mark != null && mark.isClear()) {
         globalMarks.remove(new Character(ch));
+        marksChanged();
         mark = null;
       }
     }
@@ -167,6 +177,7 @@ public class MarkGroup {
     Mark mark = (Mark)fmarks.get(new Character(ch));
     if (mark != null && mark.isClear()) {
       fmarks.remove(new Character(ch));
+      marksChanged();
       mark = null;
     }
 
@@ -222,6 +233,7 @@ public class MarkGroup {
         oldMark.clear();
       }
     }
+    marksChanged();
 
     return true;
   }
@@ -285,6 +297,7 @@ public class MarkGroup {
     }
 
     jumps.add(jump);
+    marksChanged();
 
     if (reset) {
       jumpSpot = -1;
@@ -308,6 +321,7 @@ public class MarkGroup {
     }
 
     mark.clear();
+    marksChanged();
   }
 
   @NotNull
@@ -394,6 +408,23 @@ public class MarkGroup {
   }
 
   public void saveData(@NotNull Element element) {
+    if (savedMarks == null) {
+      savedMarks = new Element("marks");
+      createMarksElements(savedMarks);
+    }
+    for (Object child : savedMarks.getChildren()) {
+      element.addContent(((Element)child).clone());
+    }
+  }
+
+  /**
+   * Marks are invalidated on every change, the next save of the state creates the elements again
+   */
+  private void marksChanged() {
+    savedMarks = null;
+  }
+
+  private void createMarksElements(@NotNull Element element) {
     Element marksElem = new Element("globalmarks");
     for (Mark mark : globalMarks.values()) {
       if (!mark.isClear()) {
@@ -420,8 +451,9 @@ public class MarkGroup {
       }
     });
 
-    if (files.size() > SAVE_MARK_COUNT) {
-      files = files.subList(files.size() - SAVE_MARK_COUNT, files.size());
+    final int maxFiles = Math.max(VimInfo.getNumber(VimInfo.FILE_MARKS, SAVE_MARK_COUNT), 0);
+    if (files.size() > maxFiles) {
+      files = files.subList(files.size() - maxFiles, files.size());
     }
 
     for (String file : fileMarks.keySet()) {
@@ -470,6 +502,7 @@ public class MarkGroup {
     // LocalFileSystem.getInstance().findFileByPath() results in the following error:
     // Read access is allowed from event dispatch thread or inside read-action only
     // (see com.intellij.openapi.application.Application.runReadAction())
+    marksChanged();
 
     Element marksElem = element.getChild("globalmarks");
     if (marksElem != null) {
@@ -671,8 +704,12 @@ public class MarkGroup {
       if (event.getOldLength() == 0) return;
 
       Document doc = event.getDocument();
-      updateMarkFromDelete(getAnEditor(doc), VimPlugin.getMark().getAllFileMarks(doc), event.getOffset(),
-                           event.getOldLength());
+      final MarkGroup markGroup = VimPlugin.getMark();
+      final HashMap<Character, Mark> marks = markGroup.getAllFileMarks(doc);
+      updateMarkFromDelete(getAnEditor(doc), marks, event.getOffset(), event.getOldLength());
+      if (marks != null && !marks.isEmpty()) {
+        markGroup.marksChanged();
+      }
       // TODO - update jumps
     }
 
@@ -689,8 +726,12 @@ public class MarkGroup {
       if (event.getNewLength() == 0 || (event.getNewLength() == 1 && event.getNewFragment().charAt(0) != '\n')) return;
 
       Document doc = event.getDocument();
-      updateMarkFromInsert(getAnEditor(doc), VimPlugin.getMark().getAllFileMarks(doc), event.getOffset(),
-                           event.getNewLength());
+      final MarkGroup markGroup = VimPlugin.getMark();
+      final HashMap<Character, Mark> marks = markGroup.getAllFileMarks(doc);
+      updateMarkFromInsert(getAnEditor(doc), marks, event.getOffset(), event.getNewLength());
+      if (marks != null && !marks.isEmpty()) {
+        markGroup.marksChanged();
+      }
       // TODO - update jumps
     }
 
@@ -711,6 +752,10 @@ public class MarkGroup {
   @NotNull private final HashMap<Character, Mark> globalMarks = new HashMap<Character, Mark>();
   @NotNull private final List<Jump> jumps = new ArrayList<Jump>();
   private int jumpSpot = -1;
+  /**
+   * The elements of the last saved state, null if the marks or jumps have changed since then
+   */
+  @Nullable private Element savedMarks = null;
 
   private static final int SAVE_MARK_COUNT = 20;
   private static final int SAVE_JUMP_COUNT = 100;
@@ -40,9 +40,12 @@ import com.maddyhome.idea.vim.common.Jump;
 import com.maddyhome.idea.vim.common.Mark;
 import com.maddyhome.idea.vim.common.TextRange;
 import com.maddyhome.idea.vim.ex.ExOutputModel;
+import com.maddyhome.idea.vim.helper.BlankLineIndex;
 import com.maddyhome.idea.vim.helper.EditorData;
 import com.maddyhome.idea.vim.helper.EditorHelper;
+import com.maddyhome.idea.vim.helper.MotionRunner;
 import com.maddyhome.idea.vim.helper.SearchHelper;
+import com.maddyhome.idea.vim.helper.SentenceBoundaryIndex;
 import com.maddyhome.idea.vim.option.BoundStringOption;
 import com.maddyhome.idea.vim.option.NumberOption;
 import com.maddyhome.idea.vim.option.Options;
@@ -97,6 +100,14 @@ public class MotionGroup {
           removeEditorListener(editor);
           EditorData.setMotionGroup(editor, false);
         }
+        final Document document = editor.getDocument();
+        for (Editor other : EditorFactory.getInstance().getEditors(document)) {
+          if (other != editor) {
+            return;
+          }
+        }
+        BlankLineIndex.release(document);
+        SentenceBoundaryIndex.release(document);
       }
     }, ApplicationManager.getApplication());
   }
@@ -574,13 +585,18 @@ public class MotionGroup {
    * @param bigWord  If true then find WORD, if false then find word
    * @return position
    */
-  public int moveCaretToNextWord(@NotNull Editor editor, int count, boolean bigWord) {
+  public int moveCaretToNextWord(@NotNull Editor editor, final int count, final boolean bigWord) {
     final int offset = editor.getCaretModel().getOffset();
     final int size = EditorHelper.getFileSize(editor);
     if ((offset == 0 && count < 0) || (offset >= size - 1 && count > 0)) {
       return -1;
     }
-    return SearchHelper.findNextWord(editor, count, bigWord);
+    return MotionRunner.run(editor, new MotionRunner.Motion() {
+      @Override
+      public int compute(@NotNull CharSequence chars, int caretOffset) {
+        return SearchHelper.findNextWord(chars, caretOffset, size, count, bigWord, false);
+      }
+    });
   }
 
   /**
@@ -621,8 +637,14 @@ public class MotionGroup {
    * @param count  The number of paragraphs to skip
    * @return position
    */
-  public int moveCaretToNextParagraph(@NotNull Editor editor, int count) {
-    int res = SearchHelper.findNextParagraph(editor, count, false);
+  public int moveCaretToNextParagraph(@NotNull Editor editor, final int count) {
+    final Document document = editor.getDocument();
+    int res = MotionRunner.run(editor, new MotionRunner.Motion() {
+      @Override
+      public int compute(@NotNull CharSequence chars, int offset) {
+        return SearchHelper.findNextParagraph(document, offset, count, false);
+      }
+    });
     if (res >= 0) {
       res = EditorHelper.normalizeOffset(editor, res, true);
     }
@@ -633,8 +655,14 @@ public class MotionGroup {
     return res;
   }
 
-  public int moveCaretToNextSentenceStart(@NotNull Editor editor, int count) {
-    int res = SearchHelper.findNextSentenceStart(editor, count, false, true);
+  public int moveCaretToNextSentenceStart(@NotNull Editor editor, final int count) {
+    final Document document = editor.getDocument();
+    int res = MotionRunner.run(editor, new MotionRunner.Motion() {
+      @Override
+      public int compute(@NotNull CharSequence chars, int offset) {
+        return SearchHelper.findNextSentenceStart(document, offset, count, false, true);
+      }
+    });
     if (res >= 0) {
       res = EditorHelper.normalizeOffset(editor, res, true);
     }
@@ -645,8 +673,14 @@ public class MotionGroup {
     return res;
   }
 
-  public int moveCaretToNextSentenceEnd(@NotNull Editor editor, int count) {
-    int res = SearchHelper.findNextSentenceEnd(editor, count, false, true);
+  public int moveCaretToNextSentenceEnd(@NotNull Editor editor, final int count) {
+    final Document document = editor.getDocument();
+    int res = MotionRunner.run(editor, new MotionRunner.Motion() {
+      @Override
+      public int compute(@NotNull CharSequence chars, int offset) {
+        return SearchHelper.findNextSentenceEnd(document, offset, count, false, true);
+      }
+    });
     if (res >= 0) {
       res = EditorHelper.normalizeOffset(editor, res, false);
     }
@@ -800,7 +834,7 @@ public class MotionGroup {
   }
 
   private void scrollColumnToScreenColumn(@NotNull Editor editor, int column) {
-    int scrollOffset = ((NumberOption)Options.getInstance().getOption("sidescrolloff")).value();
+    int scrollOffset = Options.getInstance().getSideScrollOffOption().value(editor);
     int width = EditorHelper.getScreenWidth(editor);
     if (scrollOffset > width / 2) {
       scrollOffset = width / 2;
@@ -823,7 +857,7 @@ public class MotionGroup {
 
   private void scrollLineToScreenLine(@NotNull Editor editor, int line, int rawCount, int count,
                                       boolean start) {
-    int scrollOffset = ((NumberOption)Options.getInstance().getOption("scrolloff")).value();
+    int scrollOffset = Options.getInstance().getScrollOffOption().value(editor);
     int height = EditorHelper.getScreenHeight(editor);
     if (scrollOffset > height / 2) {
       scrollOffset = height / 2;
@@ -870,7 +904,7 @@ public class MotionGroup {
 
   private int moveCaretToScreenLine(@NotNull Editor editor, int line) {
     //saveJumpLocation(editor, context);
-    int scrollOffset = ((NumberOption)Options.getInstance().getOption("scrolloff")).value();
+    int scrollOffset = Options.getInstance().getScrollOffOption().value(editor);
     int height = EditorHelper.getScreenHeight(editor);
     if (scrollOffset > height / 2) {
       scrollOffset = height / 2;
@@ -889,10 +923,10 @@ public class MotionGroup {
   }
 
   public boolean scrollHalfPage(@NotNull Editor editor, int dir, int count) {
-    NumberOption scroll = (NumberOption)Options.getInstance().getOption("scroll");
+    NumberOption scroll = Options.getInstance().getScrollOption();
     int height = EditorHelper.getScreenHeight(editor) / 2;
     if (count == 0) {
-      count = scroll.value();
+      count = scroll.value(editor);
       if (count == 0) {
         count = height;
       }
@@ -928,8 +962,8 @@ public class MotionGroup {
   }
 
   public static void moveCaretToView(@NotNull Editor editor) {
-    int scrollOffset = ((NumberOption)Options.getInstance().getOption("scrolloff")).value();
-    int sideScrollOffset = ((NumberOption)Options.getInstance().getOption("sidescrolloff")).value();
+    int scrollOffset = Options.getInstance().getScrollOffOption().value(editor);
+    int sideScrollOffset = Options.getInstance().getSideScrollOffOption().value(editor);
     int height = EditorHelper.getScreenHeight(editor);
     int width = EditorHelper.getScreenWidth(editor);
     if (scrollOffset > height / 2) {
@@ -1305,10 +1339,10 @@ public class MotionGroup {
     final int line = position.line;
     final int column = position.column;
     final int topLine = EditorHelper.getVisualLineAtTopOfScreen(editor);
-    int scrollOffset = ((NumberOption)Options.getInstance().getOption("scrolloff")).value();
+    int scrollOffset = Options.getInstance().getScrollOffOption().value(editor);
     int scrollJumpSize = 0;
     if (scrollJump) {
-      scrollJumpSize = Math.max(0, ((NumberOption)Options.getInstance().getOption("scrolljump")).value() - 1);
+      scrollJumpSize = Math.max(0, Options.getInstance().getScrollJumpOption().value() - 1);
     }
 
     int height = EditorHelper.getScreenHeight(editor);
@@ -1354,10 +1388,10 @@ public class MotionGroup {
     int visualColumn = EditorHelper.getVisualColumnAtLeftOfScreen(editor);
     int width = EditorHelper.getScreenWidth(editor);
     scrollJump = (CommandState.getInstance(editor).getFlags() & Command.FLAG_IGNORE_SIDE_SCROLL_JUMP) == 0;
-    scrollOffset = ((NumberOption)Options.getInstance().getOption("sidescrolloff")).value();
+    scrollOffset = Options.getInstance().getSideScrollOffOption().value(editor);
     scrollJumpSize = 0;
     if (scrollJump) {
-      scrollJumpSize = Math.max(0, ((NumberOption)Options.getInstance().getOption("sidescroll")).value() - 1);
+      scrollJumpSize = Math.max(0, Options.getInstance().getSideScrollOption().value() - 1);
       if (scrollJumpSize == 0) {
         scrollJumpSize = width / 2;
       }
@@ -1487,7 +1521,7 @@ public class MotionGroup {
     visualStart = editor.getSelectionModel().getSelectionStart();
     visualEnd = editor.getSelectionModel().getSelectionEnd();
     if (CommandState.getInstance(editor).getSubMode() == CommandState.SubMode.VISUAL_CHARACTER) {
-      BoundStringOption opt = (BoundStringOption)Options.getInstance().getOption("selection");
+      BoundStringOption opt = Options.getInstance().getSelectionOption();
       int adj = 1;
       if (opt.getValue().equals("exclusive")) {
         adj = 0;
@@ -1666,7 +1700,7 @@ public class MotionGroup {
         start = end;
         end = t;
       }
-      final BoundStringOption opt = (BoundStringOption)Options.getInstance().getOption("selection");
+      final BoundStringOption opt = Options.getInstance().getSelectionOption();
       int lineEnd = EditorHelper.getLineEndForOffset(editor, end);
       final int adj = opt.getValue().equals("exclusive") || end == lineEnd ? 0 : 1;
       final int adjEnd = Math.min(EditorHelper.getFileSize(editor), end + adj);
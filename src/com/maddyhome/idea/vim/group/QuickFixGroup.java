@@ -0,0 +1,161 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.group;
+
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.maddyhome.idea.vim.VimPlugin;
+import com.maddyhome.idea.vim.common.CharacterPosition;
+import com.maddyhome.idea.vim.common.QuickFixList;
+import com.maddyhome.idea.vim.ex.ExOutputModel;
+import com.maddyhome.idea.vim.helper.EditorHelper;
+import com.maddyhome.idea.vim.helper.MessageHelper;
+import com.maddyhome.idea.vim.helper.Msg;
+import com.maddyhome.idea.vim.helper.StringHelper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The quickfix list of the results of the last :vimgrep
+ */
+public class QuickFixGroup {
+  /**
+   * Replaces the current list with a new empty one
+   */
+  @NotNull
+  public QuickFixList newList(@NotNull String title) {
+    final QuickFixList list = new QuickFixList(title);
+    myList = list;
+    myCurrent = 0;
+    return list;
+  }
+
+  @Nullable
+  public QuickFixList getList() {
+    return myList;
+  }
+
+  /**
+   * Opens the file of the entry and moves the caret to it, the current position is saved as a jump
+   *
+   * @return false if there is no such entry or its file cannot be opened
+   */
+  public boolean jumpToEntry(@NotNull Editor editor, int index) {
+    final QuickFixList list = myList;
+    final Project project = editor.getProject();
+    if (list == null || project == null || index < 0 || index >= list.size()) {
+      return false;
+    }
+    final QuickFixList.Entry entry = list.get(index);
+    if (!entry.getFile().isValid()) {
+      return false;
+    }
+    myCurrent = index;
+    VimPlugin.getMark().saveJumpLocation(editor);
+    final Editor target = VimPlugin.getFile().selectEditor(project, entry.getFile());
+    if (target == null) {
+      return false;
+    }
+    final int line = EditorHelper.normalizeLine(target, entry.getLine());
+    final int offset = EditorHelper.characterPositionToOffset(target, new CharacterPosition(line, entry.getCol()));
+    MotionGroup.moveCaret(target, EditorHelper.normalizeOffset(target, line, offset, false));
+    VimPlugin.showMessage(MessageHelper.message(Msg.quickfix_entry, index + 1, list.size(), entry.getText().trim()));
+    return true;
+  }
+
+  /**
+   * Jumps to the entry count entries after the current one
+   */
+  public boolean nextEntry(@NotNull Editor editor, int count) {
+    return jumpToEntryNumber(editor, myCurrent + count, true);
+  }
+
+  /**
+   * Jumps to the entry count entries before the current one
+   */
+  public boolean previousEntry(@NotNull Editor editor, int count) {
+    return jumpToEntryNumber(editor, myCurrent - count, true);
+  }
+
+  /**
+   * Jumps to the entry with the 1-based number, the current entry is used if number is 0
+   */
+  public boolean selectEntry(@NotNull Editor editor, int number) {
+    return jumpToEntryNumber(editor, number > 0 ? number - 1 : myCurrent, false);
+  }
+
+  /**
+   * Shows the entries around the current one, only the visible entries are formatted no matter how long the list is
+   *
+   * @param height the number of entries to show
+   */
+  public boolean showEntries(@NotNull Editor editor, int height) {
+    final QuickFixList list = myList;
+    if (list == null || list.size() == 0) {
+      VimPlugin.showMessage(MessageHelper.message(Msg.E42));
+      return false;
+    }
+    final int size = list.size();
+    final int current = Math.min(myCurrent, size - 1);
+    final int start = Math.max(0, Math.min(current - height / 2, size - height));
+    final int end = Math.min(size, start + height);
+    final Project project = editor.getProject();
+    final VirtualFile baseDir = project != null ? project.getBaseDir() : null;
+    final int width = Integer.toString(end).length();
+
+    final StringBuilder text = new StringBuilder();
+    text.append(list.getTitle()).append("\n");
+    for (int i = start; i < end; i++) {
+      final QuickFixList.Entry entry = list.get(i);
+      text.append(i == current ? "> " : "  ");
+      text.append(StringHelper.rightJustify(Integer.toString(i + 1), width, ' '));
+      text.append(" ");
+      final String path = baseDir != null ? VfsUtilCore.getRelativePath(entry.getFile(), baseDir, '/') : null;
+      text.append(path != null ? path : entry.getFile().getPresentableUrl());
+      text.append(":").append(entry.getLine() + 1);
+      text.append(" col ").append(entry.getCol() + 1);
+      text.append(": ").append(entry.getText());
+      text.append("\n");
+    }
+
+    ExOutputModel.getInstance(editor).output(text.toString());
+    return true;
+  }
+
+  private boolean jumpToEntryNumber(@NotNull Editor editor, int index, boolean relative) {
+    final QuickFixList list = myList;
+    if (list == null || list.size() == 0) {
+      VimPlugin.showMessage(MessageHelper.message(Msg.E42));
+      return false;
+    }
+    if (index < 0 || index >= list.size()) {
+      if (relative) {
+        VimPlugin.showMessage(MessageHelper.message(Msg.E553));
+        return false;
+      }
+      index = list.size() - 1;
+    }
+    return jumpToEntry(editor, index);
+  }
+
+  @Nullable private volatile QuickFixList myList;
+  private int myCurrent;
+}
@@ -22,9 +22,6 @@ import com.google.common.collect.ImmutableList;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
-import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.util.Function;
-import com.intellij.util.containers.ContainerUtil;
 import com.maddyhome.idea.vim.VimPlugin;
 import com.maddyhome.idea.vim.action.motion.mark.MotionGotoFileMarkAction;
 import com.maddyhome.idea.vim.action.motion.search.SearchAgainNextAction;
@@ -45,12 +42,16 @@ import com.maddyhome.idea.vim.option.ListOption;
 import com.maddyhome.idea.vim.option.OptionChangeEvent;
 import com.maddyhome.idea.vim.option.OptionChangeListener;
 import com.maddyhome.idea.vim.option.Options;
+import com.maddyhome.idea.vim.option.VimInfo;
 import com.maddyhome.idea.vim.ui.ClipboardHandler;
 import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.Transferable;
 import java.awt.event.KeyEvent;
 import java.util.*;
 
@@ -71,6 +72,22 @@ public class RegisterGroup {
   @NotNull private final HashMap<Character, Register> registers = new HashMap<Character, Register>();
   private char recordRegister = 0;
   @Nullable private List<KeyStroke> recordList = null;
+  /**
+   * The registers element of the last saved state, null if the registers have changed since then
+   */
+  @Nullable private Element savedRegisters = null;
+  /**
+   * The text and the type of the last register put to the system clipboard. It is valid while the clipboard is owned by
+   * us, so reading the clipboard registers after a yank doesn't ask the system for the text and doesn't have to guess
+   * its type.
+   */
+  @Nullable private volatile Register clipboardContents = null;
+  @NotNull private final ClipboardOwner clipboardOwner = new ClipboardOwner() {
+    @Override
+    public void lostOwnership(Clipboard clipboard, Transferable contents) {
+      clipboardContents = null;
+    }
+  };
 
   public RegisterGroup() {
     final ListOption clipboardOption = Options.getInstance().getListOption(Options.CLIPBOARD);
@@ -90,6 +107,11 @@ public class RegisterGroup {
         }
       });
     }
+    VimInfo.addChangeListener(new OptionChangeListener() {
+      public void valueChange(OptionChangeEvent event) {
+        savedRegisters = null;
+      }
+    });
   }
 
   /**
@@ -150,6 +172,8 @@ public class RegisterGroup {
     // Null register doesn't get saved
     if (lastRegister == '_') return true;
 
+    savedRegisters = null;
+
     int start = range.getStartOffset();
     int end = range.getEndOffset();
     // Normalize the start and end
@@ -178,7 +202,10 @@ public class RegisterGroup {
       }
     }
     else if (CLIPBOARD_REGISTERS.contains(register)) {
-      ClipboardHandler.setClipboardText(text);
+      clipboardContents = null;
+      if (ClipboardHandler.setClipboardText(text, clipboardOwner)) {
+        clipboardContents = new Register(register, type, text);
+      }
     }
     // Put the text in the specified register
     else {
@@ -330,6 +357,7 @@ public class RegisterGroup {
   }
 
   public void setKeys(char register, @NotNull List<KeyStroke> keys) {
+    savedRegisters = null;
     registers.put(register, new Register(register, SelectionType.CHARACTER_WISE, keys));
   }
 
@@ -341,6 +369,7 @@ public class RegisterGroup {
       }
 
       if (recordList != null) {
+        savedRegisters = null;
         if (reg == null) {
           reg = new Register(Character.toLowerCase(recordRegister), SelectionType.CHARACTER_WISE, recordList);
           registers.put(Character.toLowerCase(recordRegister), reg);
@@ -357,38 +386,118 @@ public class RegisterGroup {
 
   public void saveData(@NotNull final Element element) {
     logger.debug("saveData");
+    if (savedRegisters == null) {
+      savedRegisters = createRegistersElement();
+    }
+    element.addContent(savedRegisters.clone());
+  }
+
+  /**
+   * Creates the registers element within the limits of the 'viminfo' option. Registers bigger than the size limit are
+   * skipped, text registers longer than the line limit are truncated.
+   */
+  @NotNull
+  private Element createRegistersElement() {
     final Element registersElement = new Element("registers");
+    final int maxLines = VimInfo.getNumber(VimInfo.REGISTER_LINES, -1);
+    if (maxLines == 0) {
+      return registersElement;
+    }
+    final int maxSize = VimInfo.getNumber(VimInfo.REGISTER_SIZE, -1);
     for (Character key : registers.keySet()) {
       final Register register = registers.get(key);
       final Element registerElement = new Element("register");
       registerElement.setAttribute("name", String.valueOf(key));
       registerElement.setAttribute("type", Integer.toString(register.getType().getValue()));
       final String text = register.getText();
+      final Element contentElement;
+      final String content;
       if (text != null) {
-        final Element textElement = new Element("text");
-        StringHelper.setSafeXmlText(textElement, text);
-        registerElement.addContent(textElement);
+        contentElement = new Element("text");
+        content = maxLines > 0 ? truncateLines(text, maxLines, register.getType()) : text;
       }
       else {
-        final Element keys = new Element("keys");
-        final List<KeyStroke> list = register.getKeys();
-        for (KeyStroke stroke : list) {
-          final Element k = new Element("key");
-          k.setAttribute("char", Integer.toString(stroke.getKeyChar()));
-          k.setAttribute("code", Integer.toString(stroke.getKeyCode()));
-          k.setAttribute("mods", Integer.toString(stroke.getModifiers()));
-          keys.addContent(k);
-        }
-        registerElement.addContent(keys);
+        contentElement = new Element("keys");
+        content = encodeKeys(register.getKeys());
+      }
+      if (maxSize >= 0 && content.length() > maxSize * 1024) {
+        continue;
       }
+      StringHelper.setSafeXmlText(contentElement, content);
+      registerElement.addContent(contentElement);
       registersElement.addContent(registerElement);
     }
+    return registersElement;
+  }
 
-    element.addContent(registersElement);
+  @NotNull
+  private static String truncateLines(@NotNull String text, int maxLines, @NotNull SelectionType type) {
+    int end = -1;
+    for (int i = 0; i < maxLines; i++) {
+      end = text.indexOf('\n', end + 1);
+      if (end < 0) {
+        return text;
+      }
+    }
+    if (end == text.length() - 1) {
+      return text;
+    }
+    return text.substring(0, type == SelectionType.LINE_WISE ? end + 1 : end);
+  }
+
+  /**
+   * Encodes keys as their characters, keys without a character are written as "\{code},{modifiers};" and a backslash
+   * is doubled.
+   */
+  @NotNull
+  private static String encodeKeys(@NotNull List<KeyStroke> keys) {
+    final StringBuilder builder = new StringBuilder(keys.size());
+    for (KeyStroke key : keys) {
+      final char c = key.getKeyChar();
+      if (c == KeyEvent.CHAR_UNDEFINED) {
+        builder.append('\\').append(key.getKeyCode()).append(',').append(key.getModifiers()).append(';');
+      }
+      else if (c == '\\') {
+        builder.append("\\\\");
+      }
+      else {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  @NotNull
+  private static List<KeyStroke> decodeKeys(@NotNull String text) {
+    final List<KeyStroke> keys = new ArrayList<KeyStroke>(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c == '\\' && i + 1 < text.length() && text.charAt(i + 1) == '\\') {
+        keys.add(KeyStroke.getKeyStroke('\\'));
+        i++;
+      }
+      else if (c == '\\') {
+        final int comma = text.indexOf(',', i);
+        final int end = text.indexOf(';', i);
+        if (comma < 0 || end < comma) {
+          break;
+        }
+        final int code = Integer.parseInt(text.substring(i + 1, comma));
+        final int modifiers = Integer.parseInt(text.substring(comma + 1, end));
+        //noinspection MagicConstant
+        keys.add(KeyStroke.getKeyStroke(code, modifiers));
+        i = end;
+      }
+      else {
+        keys.add(KeyStroke.getKeyStroke(c));
+      }
+    }
+    return keys;
   }
 
   public void readData(@NotNull final Element element) {
     logger.debug("readData");
+    savedRegisters = null;
     final Element registersElement = element.getChild("registers");
     if (registersElement != null) {
       //noinspection unchecked
@@ -413,6 +522,13 @@ public class RegisterGroup {
           //noinspection unchecked
           final List<Element> keyElements = keysElement.getChildren("key");
           final List<KeyStroke> strokes = new ArrayList<KeyStroke>();
+          // The keys are either encoded as text or, in the state saved by older versions, are elements
+          if (keyElements.isEmpty()) {
+            final String text = StringHelper.getSafeXmlText(keysElement);
+            if (text != null) {
+              strokes.addAll(decodeKeys(text));
+            }
+          }
           for (Element keyElement : keyElements) {
             final int code = Integer.parseInt(keyElement.getAttributeValue("code"));
             final int modifiers = Integer.parseInt(keyElement.getAttributeValue("mods"));
@@ -431,6 +547,11 @@ public class RegisterGroup {
 
   @Nullable
   private Register refreshClipboardRegister(char r) {
+    final Register cached = clipboardContents;
+    final String cachedText = cached != null ? cached.getText() : null;
+    if (cached != null && cachedText != null) {
+      return new Register(r, cached.getType(), cachedText);
+    }
     final String text = ClipboardHandler.getClipboardText();
     if (text != null) {
       return new Register(r, guessSelectionType(text), text);
@@ -438,16 +559,29 @@ public class RegisterGroup {
     return null;
   }
 
+  /**
+   * Guesses the type of a text put to the clipboard by another application: several non-empty lines of the same length
+   * are a block. The text is scanned once without splitting it, the clipboard may hold a whole file.
+   */
   @NotNull
   private SelectionType guessSelectionType(@NotNull String text) {
-    final String[] lines = StringUtil.splitByLines(text);
-    final HashSet<Integer> lengths = new HashSet<Integer>(ContainerUtil.map(lines, new Function<String, Integer>() {
-      @Override
-      public Integer fun(String s) {
-        return s.length();
+    final int length = text.length();
+    int lineCount = 0;
+    int lineLength = -1;
+    boolean sameLengths = true;
+    int lineStart = 0;
+    for (int i = 0; i <= length && sameLengths; i++) {
+      if (i == length || text.charAt(i) == '\n' || text.charAt(i) == '\r') {
+        final int currentLength = i - lineStart;
+        if (currentLength > 0) {
+          sameLengths = lineCount == 0 || currentLength == lineLength;
+          lineLength = currentLength;
+          lineCount++;
+        }
+        lineStart = i + 1;
       }
-    }));
-    if (lines.length > 1 && lengths.size() == 1) {
+    }
+    if (sameLengths && lineCount > 1) {
       return SelectionType.BLOCK_WISE;
     }
     else if (text.endsWith("\n")) {
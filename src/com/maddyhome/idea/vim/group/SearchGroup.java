@@ -18,7 +18,10 @@
 package com.maddyhome.idea.vim.group;
 
 import com.google.common.collect.Lists;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.EditorFactory;
 import com.intellij.openapi.editor.colors.EditorColors;
@@ -28,18 +31,33 @@ import com.intellij.openapi.editor.markup.HighlighterLayer;
 import com.intellij.openapi.editor.markup.HighlighterTargetArea;
 import com.intellij.openapi.editor.markup.RangeHighlighter;
 import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.FileEditorManagerAdapter;
 import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
+import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.impl.BackgroundableProcessIndicator;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.roots.ContentIterator;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.Processor;
 import com.maddyhome.idea.vim.VimPlugin;
 import com.maddyhome.idea.vim.command.Command;
 import com.maddyhome.idea.vim.command.CommandState;
 import com.maddyhome.idea.vim.command.SelectionType;
 import com.maddyhome.idea.vim.common.CharacterPosition;
+import com.maddyhome.idea.vim.common.QuickFixList;
 import com.maddyhome.idea.vim.common.TextRange;
 import com.maddyhome.idea.vim.ex.LineRange;
 import com.maddyhome.idea.vim.helper.*;
@@ -51,6 +69,7 @@ import com.maddyhome.idea.vim.regexp.CharacterClasses;
 import com.maddyhome.idea.vim.regexp.RegExp;
 import com.maddyhome.idea.vim.ui.ExEntryPanel;
 import com.maddyhome.idea.vim.ui.ModalEntry;
+import gnu.trove.TIntArrayList;
 import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -59,6 +78,8 @@ import javax.swing.*;
 import java.text.NumberFormat;
 import java.text.ParsePosition;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 public class SearchGroup {
   @Nullable
@@ -175,6 +196,7 @@ public class SearchGroup {
       do_ask = false;
       do_error = true;
       //do_print = false;
+      do_count = false;
       do_ic = 0;
     }
     while (!cmd.isNul()) {
@@ -191,6 +213,9 @@ public class SearchGroup {
       else if (cmd.charAt() == 'e') {
         do_error = !do_error;
       }
+      else if (cmd.charAt() == 'n') {
+        do_count = true;
+      }
       else if (cmd.charAt() == 'r')       /* use last used regexp */ {
         which_pat = RE_LAST;
       }
@@ -284,6 +309,11 @@ public class SearchGroup {
       regmatch.rmm_ic = false;
     }
 
+    /* the 'n' flag only reports the number of matches */
+    if (do_count) {
+      return countMatches(editor, regmatch.regprog, regmatch.rmm_ic, pattern, line1, line2);
+    }
+
     /*
     * ~ in the substitute pattern is replaced with the old pattern.
     * We do it here once to avoid it to be replaced over and over again.
@@ -415,6 +445,35 @@ public class SearchGroup {
     return true;
   }
 
+  private boolean countMatches(@NotNull Editor editor, @NotNull RegExp.regprog_T prog, boolean ignoreCase,
+                               @NotNull String pattern, int line1, int line2) {
+    final DocumentSnapshot snapshot = DocumentSnapshot.create(editor.getDocument(), line1, line2);
+    final MatchFinder finder =
+      new MatchFinder(snapshot, prog, ignoreCase, editor.getCaretModel().getLogicalPosition(), null);
+    int matches = 0;
+    int lines = 0;
+    int lastLine = -1;
+    for (TextRange range : finder.findAll(line1, line2)) {
+      final int line = editor.offsetToLogicalPosition(range.getStartOffset()).line;
+      if (line != lastLine) {
+        lines++;
+        matches++;
+        lastLine = line;
+      }
+      else if (do_all) {
+        matches++;
+      }
+    }
+    if (matches == 0) {
+      if (do_error) {
+        VimPlugin.showMessage(MessageHelper.message(Msg.e_patnotf2, pattern));
+      }
+      return false;
+    }
+    VimPlugin.showMessage(MessageHelper.message(Msg.match_count, matches, lines));
+    return true;
+  }
+
   @NotNull
   private static ReplaceConfirmationChoice confirmChoice(@NotNull Editor editor, @NotNull String match) {
     final Ref<ReplaceConfirmationChoice> result = Ref.create(ReplaceConfirmationChoice.QUIT);
@@ -452,9 +511,188 @@ public class SearchGroup {
     return result.get();
   }
 
+  /**
+   * Searches the files of the project for the pattern in the background and puts the matches into a new quickfix list
+   * as they are found. A running search is cancelled by the next one.
+   *
+   * @param pattern      the pattern, the last search pattern if empty
+   * @param all          add every match of a line, not only the first one
+   * @param jump         jump to the first match when the search is finished
+   * @param filePatterns Ant-style patterns of paths relative to the project directory, "%" is the current file
+   * @param title        the title of the new quickfix list
+   * @return false if the pattern is invalid
+   */
+  public boolean vimgrep(@NotNull final Editor editor, @NotNull String pattern, final boolean all, final boolean jump,
+                         @NotNull List<String> filePatterns, @NotNull String title) {
+    final Project project = editor.getProject();
+    if (project == null) {
+      return false;
+    }
+    if (pattern.isEmpty()) {
+      if (lastSearch == null) {
+        VimPlugin.showMessage(MessageHelper.message(Msg.E35));
+        return false;
+      }
+      pattern = lastSearch;
+    }
+    final RegExp.regprog_T prog = RegExp.compile(pattern, 1);
+    if (prog == null) {
+      return false;
+    }
+    final boolean ignoreCase = shouldIgnoreCase(pattern, false);
+
+    final List<Pattern> paths = new ArrayList<Pattern>();
+    final Set<VirtualFile> explicitFiles = new LinkedHashSet<VirtualFile>();
+    for (String filePattern : filePatterns) {
+      if (filePattern.equals("%")) {
+        final VirtualFile file = EditorData.getVirtualFile(editor);
+        if (file != null) {
+          explicitFiles.add(file);
+        }
+      }
+      else {
+        paths.add(Pattern.compile(FileUtil.convertAntToRegexp(filePattern)));
+      }
+    }
+
+    final ProgressIndicator previous = vimGrepIndicator;
+    if (previous != null) {
+      previous.cancel();
+    }
+    final QuickFixList list = VimPlugin.getQuickFix().newList(title);
+    final String searchPattern = pattern;
+    final Task.Backgroundable task = new Task.Backgroundable(project, "Searching for " + pattern, true) {
+      @Override
+      public void run(@NotNull final ProgressIndicator indicator) {
+        final List<VirtualFile> files = ApplicationManager.getApplication().runReadAction(
+          new Computable<List<VirtualFile>>() {
+            @Override
+            public List<VirtualFile> compute() {
+              return findVimGrepFiles(project, paths, explicitFiles);
+            }
+          });
+        final AtomicInteger done = new AtomicInteger();
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, indicator, true, new Processor<VirtualFile>() {
+          @Override
+          public boolean process(VirtualFile file) {
+            grepFile(file, prog, ignoreCase, all, list, indicator);
+            indicator.setFraction((double)done.incrementAndGet() / files.size());
+            return true;
+          }
+        });
+      }
+
+      @Override
+      public void onSuccess() {
+        if (VimPlugin.getQuickFix().getList() != list) {
+          return;
+        }
+        if (list.size() == 0) {
+          VimPlugin.showMessage(MessageHelper.message(Msg.E480, searchPattern));
+        }
+        else if (jump) {
+          final Editor selected = FileEditorManager.getInstance(project).getSelectedTextEditor();
+          VimPlugin.getQuickFix().jumpToEntry(selected != null ? selected : editor, 0);
+        }
+      }
+    };
+    if (task.isHeadless()) {
+      ProgressManager.getInstance().run(task);
+    }
+    else {
+      // The indicator is known before the task starts, so the next :vimgrep can cancel it even if it's still queued
+      final BackgroundableProcessIndicator indicator = new BackgroundableProcessIndicator(task);
+      vimGrepIndicator = indicator;
+      ProgressManager.getInstance().runProcessWithProgressAsynchronously(task, indicator);
+    }
+    return true;
+  }
+
+  /**
+   * The text files of the project content that match the path patterns, with excluded files and files that are too
+   * large for the IDE skipped
+   */
+  @NotNull
+  private static List<VirtualFile> findVimGrepFiles(@NotNull Project project, @NotNull final List<Pattern> paths,
+                                                    @NotNull Set<VirtualFile> explicitFiles) {
+    final Set<VirtualFile> res = new LinkedHashSet<VirtualFile>(explicitFiles);
+    if (paths.isEmpty()) {
+      return new ArrayList<VirtualFile>(res);
+    }
+    final ProjectFileIndex index = ProjectRootManager.getInstance(project).getFileIndex();
+    final VirtualFile baseDir = project.getBaseDir();
+    index.iterateContent(new ContentIterator() {
+      @Override
+      public boolean processFile(VirtualFile file) {
+        ProgressManager.checkCanceled();
+        if (file.isDirectory() || file.getFileType().isBinary() || FileUtilRt.isTooLarge(file.getLength())) {
+          return true;
+        }
+        String path = baseDir != null ? VfsUtilCore.getRelativePath(file, baseDir, '/') : null;
+        if (path == null) {
+          final VirtualFile root = index.getContentRootForFile(file);
+          path = root != null ? VfsUtilCore.getRelativePath(file, root, '/') : null;
+        }
+        for (Pattern pattern : paths) {
+          if (path != null && pattern.matcher(path).matches() || pattern.matcher(file.getPath()).matches()) {
+            res.add(file);
+            break;
+          }
+        }
+        return true;
+      }
+    });
+    return new ArrayList<VirtualFile>(res);
+  }
+
+  private static void grepFile(@NotNull final VirtualFile file, @NotNull RegExp.regprog_T prog, boolean ignoreCase,
+                               boolean all, @NotNull QuickFixList list, @NotNull ProgressIndicator indicator) {
+    // Search the unsaved changes of open files, other files are loaded without creating documents for them
+    final Ref<Boolean> valid = Ref.create(false);
+    DocumentSnapshot snapshot = ApplicationManager.getApplication().runReadAction(new Computable<DocumentSnapshot>() {
+      @Override
+      public DocumentSnapshot compute() {
+        if (!file.isValid()) {
+          return null;
+        }
+        valid.set(true);
+        final Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+        return document != null ? DocumentSnapshot.create(document) : null;
+      }
+    });
+    if (!valid.get()) {
+      return;
+    }
+    if (snapshot == null) {
+      snapshot = DocumentSnapshot.create(LoadTextUtil.loadText(file));
+    }
+
+    final MatchFinder finder = new MatchFinder(snapshot, prog, ignoreCase, null, indicator);
+    final TIntArrayList lines = new TIntArrayList();
+    final TIntArrayList cols = new TIntArrayList();
+    final List<String> texts = new ArrayList<String>();
+    int lastLine = -1;
+    String lastText = null;
+    for (TextRange range : finder.findAll(0, snapshot.getLineCount() - 1)) {
+      final int line = snapshot.getLineNumber(range.getStartOffset());
+      if (all || line != lastLine) {
+        if (line != lastLine) {
+          lastText = snapshot.getLineBuffer(line).toString();
+        }
+        lines.add(line);
+        cols.add(range.getStartOffset() - snapshot.getLineStartOffset(line));
+        texts.add(lastText);
+        lastLine = line;
+      }
+    }
+    if (!lines.isEmpty()) {
+      list.addAll(file, lines, cols, texts);
+    }
+  }
+
   private static boolean shouldIgnoreCase(@NotNull String pattern, boolean noSmartCase) {
-    boolean sc = !noSmartCase && Options.getInstance().isSet("smartcase");
-    boolean ic = Options.getInstance().isSet("ignorecase");
+    boolean sc = !noSmartCase && Options.getInstance().getSmartCaseOption().getValue();
+    boolean ic = Options.getInstance().getIgnoreCaseOption().getValue();
 
     return ic && !(sc && StringHelper.containsUpperCase(pattern));
   }
@@ -565,7 +803,7 @@ public class SearchGroup {
   }
 
   private void searchHighlight(boolean noSmartCase) {
-    showSearchHighlight = Options.getInstance().isSet("hlsearch");
+    showSearchHighlight = Options.getInstance().getHlSearchOption().getValue();
     highlightSearch(noSmartCase);
   }
 
@@ -626,7 +864,7 @@ public class SearchGroup {
         return d2 - d1;
       }
     });
-    if (!Options.getInstance().isSet("wrapscan")) {
+    if (!Options.getInstance().getWrapScanOption().getValue()) {
       final int start = max.getStartOffset();
       if (forwards && start < offset || start >= offset) {
         return null;
@@ -651,46 +889,21 @@ public class SearchGroup {
                                          int startLine,
                                          int endLine,
                                          boolean ignoreCase) {
-    final List<TextRange> results = Lists.newArrayList();
+    final long startTime = Profiler.start();
     final int lineCount = EditorHelper.getLineCount(editor);
     final int actualEndLine = endLine == -1 ? lineCount : endLine;
 
-    final RegExp.regmmatch_T regMatch = new RegExp.regmmatch_T();
-    final RegExp regExp = new RegExp();
-    regMatch.regprog = regExp.vim_regcomp(pattern, 1);
-    if (regMatch.regprog == null) {
-      return results;
-    }
-
-    regMatch.rmm_ic = ignoreCase;
-
-    int col = 0;
-    for (int line = startLine; line <= actualEndLine; ) {
-      int matchedLines = regExp.vim_regexec_multi(regMatch, editor, lineCount, line, col);
-      if (matchedLines > 0) {
-        final CharacterPosition startPos = new CharacterPosition(line + regMatch.startpos[0].lnum,
-                                                                 regMatch.startpos[0].col);
-        final CharacterPosition endPos = new CharacterPosition(line + regMatch.endpos[0].lnum,
-                                                               regMatch.endpos[0].col);
-        int start = EditorHelper.characterPositionToOffset(editor, startPos);
-        int end = EditorHelper.characterPositionToOffset(editor, endPos);
-        results.add(new TextRange(start, end));
-
-        if (start != end) {
-          line += matchedLines - 1;
-          col = endPos.column;
-        }
-        else {
-          line += matchedLines;
-          col = 0;
-        }
-      }
-      else {
-        line++;
-        col = 0;
-      }
+    final RegExp.regprog_T prog = RegExp.compile(pattern, 1);
+    if (prog == null) {
+      return Lists.newArrayList();
     }
 
+    final DocumentSnapshot snapshot = DocumentSnapshot.create(editor.getDocument(), startLine, actualEndLine);
+    final MatchFinder finder =
+      new MatchFinder(snapshot, prog, ignoreCase, editor.getCaretModel().getLogicalPosition(), null);
+    final List<TextRange> results = finder.findAll(startLine, actualEndLine);
+
+    Profiler.stop(Profiler.SEARCH, "findAll", startTime);
     return results;
   }
 
@@ -713,8 +926,10 @@ public class SearchGroup {
 
   private int findItOffset(@NotNull Editor editor, int startOffset, int count, int dir,
                            boolean noSmartCase) {
-    boolean wrap = Options.getInstance().isSet("wrapscan");
+    boolean wrap = Options.getInstance().getWrapScanOption().getValue();
+    final long startTime = Profiler.start();
     TextRange range = findIt(editor, startOffset, count, dir, noSmartCase, wrap, true, true);
+    Profiler.stop(Profiler.SEARCH, "findIt", startTime);
     if (range == null) {
       return -1;
     }
@@ -1095,6 +1310,32 @@ public class SearchGroup {
                                                        color, HighlighterTargetArea.EXACT_RANGE);
   }
 
+  /**
+   * Runs a series of changes of the editor's document, the search highlights are updated once for the text changed by
+   * all of them instead of after every change
+   */
+  public void runBatchChange(@NotNull Editor editor, @NotNull Runnable changes) {
+    if (batchDocument != null) {
+      changes.run();
+      return;
+    }
+    final Document document = editor.getDocument();
+    batchDocument = document;
+    batchStartOffset = -1;
+    batchEndOffset = -1;
+    try {
+      changes.run();
+    }
+    finally {
+      batchDocument = null;
+      if (batchStartOffset >= 0) {
+        final int length = document.getTextLength();
+        DocumentSearchListener.updateHighlights(document, Math.min(batchStartOffset, length),
+                                                Math.min(batchEndOffset, length));
+      }
+    }
+  }
+
   public void clearSearchHighlight() {
     showSearchHighlight = false;
     updateHighlight();
@@ -1207,21 +1448,42 @@ public class SearchGroup {
         return;
       }
 
+      final SearchGroup searchGroup = VimPlugin.getSearch();
+      final Document document = event.getDocument();
+      final int soff = event.getOffset();
+      final int eoff = soff + event.getNewLength();
+      if (document == searchGroup.batchDocument) {
+        // Extend the changed range of the batch, the part after the change is shifted by it
+        if (searchGroup.batchStartOffset < 0) {
+          searchGroup.batchStartOffset = soff;
+          searchGroup.batchEndOffset = eoff;
+        }
+        else {
+          if (searchGroup.batchEndOffset >= soff + event.getOldLength()) {
+            searchGroup.batchEndOffset += event.getNewLength() - event.getOldLength();
+          }
+          searchGroup.batchStartOffset = Math.min(searchGroup.batchStartOffset, soff);
+          searchGroup.batchEndOffset = Math.max(searchGroup.batchEndOffset, eoff);
+        }
+        return;
+      }
+
+      updateHighlights(document, soff, eoff);
+    }
+
+    private static void updateHighlights(@NotNull Document document, int soff, int eoff) {
       Project[] projs = ProjectManager.getInstance().getOpenProjects();
       for (Project proj : projs) {
-        Editor[] editors = EditorFactory.getInstance().getEditors(event.getDocument(), proj);
+        Editor[] editors = EditorFactory.getInstance().getEditors(document, proj);
         for (Editor editor : editors) {
           Collection hls = EditorData.getLastHighlights(editor);
           if (hls == null) {
             continue;
           }
 
-          int soff = event.getOffset();
-          int eoff = soff + event.getNewLength();
-
           if (logger.isDebugEnabled()) {
             logger.debug("hls=" + hls);
-            logger.debug("event=" + event);
+            logger.debug("changed=" + soff + "-" + eoff);
           }
           Iterator iter = hls.iterator();
           while (iter.hasNext()) {
@@ -1259,12 +1521,17 @@ public class SearchGroup {
   @Nullable private String lastReplace;
   @Nullable private String lastOffset;
   private int lastDir;
-  private boolean showSearchHighlight = Options.getInstance().isSet("hlsearch");
+  private boolean showSearchHighlight = Options.getInstance().getHlSearchOption().getValue();
+  @Nullable private volatile ProgressIndicator vimGrepIndicator;
+  @Nullable private Document batchDocument;
+  private int batchStartOffset;
+  private int batchEndOffset;
 
   private boolean do_all = false; /* do multiple substitutions per line */
   private boolean do_ask = false; /* ask for confirmation */
   private boolean do_error = true; /* if false, ignore errors */
   //private boolean do_print = false; /* print last line with subs. */
+  private boolean do_count = false; /* only count the matches */
   private char do_ic = 0; /* ignore case flag */
 
   private static final int RE_LAST = 1;
@@ -0,0 +1,252 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.maddyhome.idea.vim.helper;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.event.DocumentAdapter;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+
+/**
+ * Bitmaps of the empty and the blank lines of a document, used by the paragraph motions and text objects.
+ * <p/>
+ * A line is empty if it consists of a newline only and blank if it has only whitespace before the newline, so the last
+ * line of a document without a final newline is never empty, the same as in
+ * {@link EditorHelper#isLineEmpty(com.intellij.openapi.editor.Editor, int, boolean)}.
+ * <p/>
+ * The bitmaps are built on the first use and then updated from document events. Only the changed lines are scanned
+ * again, the bits of the following lines are shifted when the change adds or removes lines. Building the bitmaps checks
+ * for the cancellation of the motion and continues from the scanned part on the next use. A change that can't be
+ * applied to the bitmaps makes them out of date until the next use instead of rescanning the document in the event.
+ * <p/>
+ * The index listens to the document until {@link #release(Document)} is called for it when its last editor is closed.
+ */
+public class BlankLineIndex {
+  @NotNull private final Document myDocument;
+  @NotNull private final Disposable myDisposable = Disposer.newDisposable();
+  @NotNull private BitSet myEmptyLines = new BitSet();
+  @NotNull private BitSet myBlankLines = new BitSet();
+  private int myLineCount;
+  private int myChangeStartLine;
+  private int myChangeEndLine;
+  /**
+   * Whether the bitmaps match the document, if not they are being built and the fields below keep the scan position
+   */
+  private boolean myUpToDate = false;
+  private int myScanOffset = 0;
+  private int myScanLine = 0;
+
+  private BlankLineIndex(@NotNull Document document) {
+    myDocument = document;
+    final Application application = ApplicationManager.getApplication();
+    // There is no application in the benchmarks
+    if (application != null) {
+      Disposer.register(application, myDisposable);
+    }
+    document.addDocumentListener(new DocumentAdapter() {
+      @Override
+      public void beforeDocumentChange(@NotNull DocumentEvent e) {
+        beforeChange(e);
+      }
+
+      @Override
+      public void documentChanged(@NotNull DocumentEvent e) {
+        changed(e);
+      }
+    }, myDisposable);
+  }
+
+  @NotNull
+  public static synchronized BlankLineIndex getInstance(@NotNull Document document) {
+    BlankLineIndex res = EditorData.getBlankLineIndex(document);
+    if (res == null) {
+      res = new BlankLineIndex(document);
+      EditorData.setBlankLineIndex(document, res);
+    }
+    return res;
+  }
+
+  /**
+   * Drops the index of the document and stops listening to its changes, it is built again on the next use
+   */
+  public static synchronized void release(@NotNull Document document) {
+    final BlankLineIndex index = EditorData.getBlankLineIndex(document);
+    if (index != null) {
+      EditorData.setBlankLineIndex(document, null);
+      Disposer.dispose(index.myDisposable);
+    }
+  }
+
+  /**
+   * Checks if the line is empty
+   *
+   * @param line        The logical line
+   * @param allowBlanks Whether lines of whitespace count as empty lines
+   */
+  public synchronized boolean isLineEmpty(int line, boolean allowBlanks) {
+    build();
+    return line >= 0 && getBits(allowBlanks).get(line);
+  }
+
+  /**
+   * Finds the nearest line starting from the given one that is empty or not empty
+   *
+   * @param line        The logical line to start from, it is included in the search
+   * @param dir         The direction of the search
+   * @param empty       Whether to look for an empty or a non-empty line
+   * @param allowBlanks Whether lines of whitespace count as empty lines
+   * @return The found line or -1 if there is no such line before the start or the end of the document. The empty line
+   * after the final newline of the document isn't included, the same as in
+   * {@link EditorHelper#getLineCount(com.intellij.openapi.editor.Editor)}.
+   */
+  public synchronized int findLine(int line, int dir, boolean empty, boolean allowBlanks) {
+    final int lineCount = EditorHelper.getLineCount(myDocument);
+    if (line < 0 || line >= lineCount) {
+      return -1;
+    }
+    build();
+    final BitSet bits = getBits(allowBlanks);
+    final int res;
+    if (dir > 0) {
+      res = empty ? bits.nextSetBit(line) : bits.nextClearBit(line);
+    }
+    else {
+      res = empty ? bits.previousSetBit(line) : bits.previousClearBit(line);
+    }
+    return res < lineCount ? res : -1;
+  }
+
+  @NotNull
+  private BitSet getBits(boolean allowBlanks) {
+    return allowBlanks ? myBlankLines : myEmptyLines;
+  }
+
+  private synchronized void beforeChange(@NotNull DocumentEvent e) {
+    if (!myUpToDate) {
+      return;
+    }
+    myChangeStartLine = myDocument.getLineNumber(e.getOffset());
+    myChangeEndLine = myDocument.getLineNumber(e.getOffset() + e.getOldLength());
+  }
+
+  private synchronized void changed(@NotNull DocumentEvent e) {
+    if (!myUpToDate) {
+      // Scan the document again from the start of the change
+      if (e.getOffset() < myScanOffset) {
+        invalidate();
+      }
+      return;
+    }
+    final int newEndLine = myDocument.getLineNumber(e.getOffset() + e.getNewLength());
+    myLineCount += newEndLine - myChangeEndLine;
+    if (myLineCount != myDocument.getLineCount()) {
+      invalidate();
+      return;
+    }
+    if (newEndLine != myChangeEndLine) {
+      shift(myEmptyLines, myChangeStartLine, myChangeEndLine, newEndLine);
+      shift(myBlankLines, myChangeStartLine, myChangeEndLine, newEndLine);
+    }
+    final CharSequence chars = myDocument.getCharsSequence();
+    for (int line = myChangeStartLine; line <= newEndLine; line++) {
+      updateLine(chars, line);
+    }
+  }
+
+  /**
+   * Moves the bits after the old end line of a change so that they follow the new end line
+   */
+  private static void shift(@NotNull BitSet bits, int startLine, int oldEndLine, int newEndLine) {
+    final int length = bits.length();
+    final BitSet tail = oldEndLine + 1 < length ? bits.get(oldEndLine + 1, length) : new BitSet();
+    if (startLine < length) {
+      bits.clear(startLine, length);
+    }
+    for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+      bits.set(newEndLine + 1 + i);
+    }
+  }
+
+  private void updateLine(@NotNull CharSequence chars, int line) {
+    final int start = myDocument.getLineStartOffset(line);
+    final int end = myDocument.getLineEndOffset(line);
+    final boolean terminated = end < chars.length();
+    myEmptyLines.set(line, terminated && start == end);
+    myBlankLines.set(line, terminated && isWhitespace(chars, start, end));
+  }
+
+  private void invalidate() {
+    myUpToDate = false;
+    myScanOffset = 0;
+    myScanLine = 0;
+    myEmptyLines = new BitSet();
+    myBlankLines = new BitSet();
+  }
+
+  /**
+   * Scans the rest of the document if the bitmaps are out of date. The scan stops at line starts, so it can be
+   * cancelled and continued later.
+   */
+  private void build() {
+    if (myUpToDate) {
+      return;
+    }
+    final CharSequence chars = myDocument.getCharsSequence();
+    final int length = chars.length();
+    int lineStart = myScanOffset;
+    boolean blank = true;
+    for (int offset = lineStart; offset < length; offset++) {
+      final char ch = chars.charAt(offset);
+      if (ch == '\n') {
+        if (offset == lineStart) {
+          myEmptyLines.set(myScanLine);
+        }
+        if (blank) {
+          myBlankLines.set(myScanLine);
+        }
+        myScanLine++;
+        lineStart = offset + 1;
+        myScanOffset = lineStart;
+        blank = true;
+        MotionRunner.checkCanceled();
+      }
+      else if (blank && !Character.isWhitespace(ch)) {
+        blank = false;
+      }
+    }
+    myLineCount = myDocument.getLineCount();
+    myUpToDate = true;
+  }
+
+  private static boolean isWhitespace(@NotNull CharSequence chars, int start, int end) {
+    for (int offset = start; offset < end; offset++) {
+      if (!Character.isWhitespace(chars.charAt(offset))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
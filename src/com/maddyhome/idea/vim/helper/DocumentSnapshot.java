@@ -0,0 +1,215 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.maddyhome.idea.vim.helper;
+
+import com.intellij.openapi.editor.Document;
+import com.maddyhome.idea.vim.common.CharacterPosition;
+import gnu.trove.TIntArrayList;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the text and the line structure of a document. It answers the line queries of
+ * {@link EditorHelper} without the document, so it can be read from any thread while the document keeps changing.
+ * <p/>
+ * The snapshot may record the line starts of a range of lines only. The lines outside of the range are found by
+ * scanning the text from the nearest recorded line, so they should be rare, e.g. the lines of a match that continues
+ * after the range.
+ */
+public class DocumentSnapshot {
+  @NotNull private final CharSequence myChars;
+  /**
+   * The start offsets of the lines from {@link #myFirstLine}, there is at least one
+   */
+  @NotNull private final int[] myLineStarts;
+  private final int myFirstLine;
+  private final int myLineCount;
+  private final int myFileSize;
+
+  private DocumentSnapshot(@NotNull CharSequence chars, @NotNull int[] lineStarts, int firstLine, int lineCount) {
+    myChars = chars;
+    myLineStarts = lineStarts;
+    myFirstLine = firstLine;
+    myLineCount = lineCount;
+    final int len = chars.length();
+    myFileSize = len == 0 || chars.charAt(len - 1) != '\n' ? len : len - 1;
+  }
+
+  /**
+   * Takes a snapshot of the document. The caller needs read access to the document.
+   */
+  @NotNull
+  public static DocumentSnapshot create(@NotNull Document document) {
+    return create(document, 0, EditorHelper.getLineCount(document) - 1);
+  }
+
+  /**
+   * Takes a snapshot of the document that records the line starts from startLine to endLine only, so it costs as much
+   * as the lines in the range and not as the whole document. The caller needs read access to the document.
+   */
+  @NotNull
+  public static DocumentSnapshot create(@NotNull Document document, int startLine, int endLine) {
+    final int lineCount = EditorHelper.getLineCount(document);
+    final int firstLine = Math.max(0, Math.min(startLine, lineCount - 1));
+    final int lastLine = Math.max(firstLine, Math.min(endLine, lineCount - 1));
+    final int[] lineStarts = new int[lastLine - firstLine + 1];
+    for (int i = 0; i < lineStarts.length; i++) {
+      lineStarts[i] = firstLine + i < lineCount ? document.getLineStartOffset(firstLine + i) : 0;
+    }
+    return new DocumentSnapshot(document.getImmutableCharSequence(), lineStarts, firstLine, lineCount);
+  }
+
+  /**
+   * Takes a snapshot of a text with '\n' line separators that doesn't have a document, e.g. of a file that isn't open
+   */
+  @NotNull
+  public static DocumentSnapshot create(@NotNull CharSequence chars) {
+    final TIntArrayList lineStarts = new TIntArrayList();
+    lineStarts.add(0);
+    final int len = chars.length();
+    // The newline at the end of the file doesn't start a line
+    for (int i = 0; i < len - 1; i++) {
+      if (chars.charAt(i) == '\n') {
+        lineStarts.add(i + 1);
+      }
+    }
+    return new DocumentSnapshot(chars, lineStarts.toNativeArray(), 0, lineStarts.size());
+  }
+
+  @NotNull
+  public CharSequence getCharsSequence() {
+    return myChars;
+  }
+
+  /**
+   * @see EditorHelper#getLineCount(Document)
+   */
+  public int getLineCount() {
+    return myLineCount;
+  }
+
+  /**
+   * @see EditorHelper#getLineStartOffset(com.intellij.openapi.editor.Editor, int)
+   */
+  public int getLineStartOffset(int line) {
+    if (line < 0) {
+      return 0;
+    }
+    else if (line >= myLineCount) {
+      return myFileSize;
+    }
+    else {
+      return findLineStart(line);
+    }
+  }
+
+  /**
+   * The end of the line including the end of file newline after the last line, the same as
+   * {@code EditorHelper.getLineEndOffset(editor, line, true)}.
+   */
+  public int getLineEndOffset(int line) {
+    if (line < 0) {
+      return 0;
+    }
+    else if (line >= myLineCount) {
+      return myChars.length();
+    }
+    else if (line + 1 < myLineCount) {
+      return findLineStart(line + 1) - 1;
+    }
+    else {
+      return myFileSize;
+    }
+  }
+
+  /**
+   * @see EditorHelper#getLineBuffer(com.intellij.openapi.editor.Editor, int)
+   */
+  @NotNull
+  public CharBuffer getLineBuffer(int line) {
+    return CharBuffer.wrap(myChars, getLineStartOffset(line), getLineEndOffset(line));
+  }
+
+  /**
+   * The line that contains the offset, the offset of a newline belongs to the line it ends
+   */
+  public int getLineNumber(int offset) {
+    final int first = myLineStarts[0];
+    if (offset < first) {
+      return Math.max(myFirstLine - countNewlines(Math.max(offset, 0), first), 0);
+    }
+    final int index = Arrays.binarySearch(myLineStarts, offset);
+    final int i = index >= 0 ? index : -index - 2;
+    if (i < myLineStarts.length - 1) {
+      return myFirstLine + i;
+    }
+    final int last = myLineStarts[myLineStarts.length - 1];
+    final int line = myFirstLine + i + countNewlines(last, Math.min(offset, myChars.length()));
+    return Math.max(Math.min(line, myLineCount - 1), 0);
+  }
+
+  /**
+   * @see EditorHelper#characterPositionToOffset(com.intellij.openapi.editor.Editor, CharacterPosition)
+   */
+  public int characterPositionToOffset(@NotNull CharacterPosition pos) {
+    return getLineStartOffset(Math.max(0, Math.min(pos.line, myLineCount - 1))) + pos.column;
+  }
+
+  /**
+   * The start of a line of the document, the line is less than the line count
+   */
+  private int findLineStart(int line) {
+    final int i = line - myFirstLine;
+    if (i >= 0 && i < myLineStarts.length) {
+      return myLineStarts[i];
+    }
+    if (i < 0) {
+      int offset = myLineStarts[0];
+      for (int n = -i; n > 0 && offset > 0; n--) {
+        offset--;
+        while (offset > 0 && myChars.charAt(offset - 1) != '\n') {
+          offset--;
+        }
+      }
+      return offset;
+    }
+    final int length = myChars.length();
+    int offset = myLineStarts[myLineStarts.length - 1];
+    for (int n = i - myLineStarts.length + 1; n > 0 && offset < length; n--) {
+      while (offset < length && myChars.charAt(offset) != '\n') {
+        offset++;
+      }
+      offset++;
+    }
+    return Math.min(offset, length);
+  }
+
+  private int countNewlines(int start, int end) {
+    int res = 0;
+    for (int offset = start; offset < end; offset++) {
+      if (myChars.charAt(offset) == '\n') {
+        res++;
+      }
+    }
+    return res;
+  }
+}
@@ -19,6 +19,7 @@
 package com.maddyhome.idea.vim.helper;
 
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.markup.RangeHighlighter;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
@@ -268,6 +269,10 @@ public class EditorData {
   private static final Key<ExOutputPanel> MORE_PANEL = new Key<ExOutputPanel>("IdeaVim.morePanel");
   private static final Key<ExOutputModel> EX_OUTPUT_MODEL = new Key<ExOutputModel>("IdeaVim.exOutputModel");
   private static final Key<TestInputModel> TEST_INPUT_MODEL = new Key<TestInputModel>("IdeaVim.testInputModel");
+  private static final Key<EditorDataContext> DATA_CONTEXT = new Key<EditorDataContext>("IdeaVim.dataContext");
+  private static final Key<BlankLineIndex> BLANK_LINE_INDEX = new Key<BlankLineIndex>("IdeaVim.blankLineIndex");
+  private static final Key<SentenceBoundaryIndex> SENTENCE_BOUNDARY_INDEX =
+    new Key<SentenceBoundaryIndex>("IdeaVim.sentenceBoundaryIndex");
 
   private static Key CONSOLE_VIEW_IN_EDITOR_VIEW = Key.create("CONSOLE_VIEW_IN_EDITOR_VIEW");
 
@@ -319,4 +324,31 @@ public class EditorData {
   public static void setTestInputModel(@NotNull Editor editor, @NotNull TestInputModel model) {
     editor.putUserData(TEST_INPUT_MODEL, model);
   }
+
+  @Nullable
+  public static EditorDataContext getDataContext(@NotNull Editor editor) {
+    return editor.getUserData(DATA_CONTEXT);
+  }
+
+  public static void setDataContext(@NotNull Editor editor, @NotNull EditorDataContext context) {
+    editor.putUserData(DATA_CONTEXT, context);
+  }
+
+  @Nullable
+  public static BlankLineIndex getBlankLineIndex(@NotNull Document document) {
+    return document.getUserData(BLANK_LINE_INDEX);
+  }
+
+  public static void setBlankLineIndex(@NotNull Document document, @Nullable BlankLineIndex index) {
+    document.putUserData(BLANK_LINE_INDEX, index);
+  }
+
+  @Nullable
+  public static SentenceBoundaryIndex getSentenceBoundaryIndex(@NotNull Document document) {
+    return document.getUserData(SENTENCE_BOUNDARY_INDEX);
+  }
+
+  public static void setSentenceBoundaryIndex(@NotNull Document document, @Nullable SentenceBoundaryIndex index) {
+    document.putUserData(SENTENCE_BOUNDARY_INDEX, index);
+  }
 }
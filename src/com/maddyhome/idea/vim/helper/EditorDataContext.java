@@ -21,12 +21,27 @@ package com.maddyhome.idea.vim.helper;
 import com.intellij.openapi.actionSystem.DataContext;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.editor.Editor;
+import org.jetbrains.annotations.NotNull;
 
 public class EditorDataContext implements DataContext {
   public EditorDataContext(Editor editor) {
     this.editor = editor;
   }
 
+  /**
+   * Gets the data context of the editor. The context has no state of its own, so one instance per editor is shared
+   * by all the keystrokes typed into it.
+   */
+  @NotNull
+  public static EditorDataContext getInstance(@NotNull Editor editor) {
+    EditorDataContext context = EditorData.getDataContext(editor);
+    if (context == null) {
+      context = new EditorDataContext(editor);
+      EditorData.setDataContext(editor, context);
+    }
+    return context;
+  }
+
   /**
    * Returns the object corresponding to the specified data identifier. Some of the supported data identifiers are
    * defined in the {@link PlatformDataKeys} class.
@@ -106,9 +106,18 @@ public class EditorHelper {
    * @return The file line count
    */
   public static int getLineCount(@NotNull final Editor editor) {
-    int len = editor.getDocument().getLineCount();
-    if (editor.getDocument().getTextLength() > 0 &&
-        editor.getDocument().getCharsSequence().charAt(editor.getDocument().getTextLength() - 1) == '\n') {
+    return getLineCount(editor.getDocument());
+  }
+
+  /**
+   * Gets the number of actual lines in the document
+   *
+   * @param document The document
+   * @return The document's line count
+   */
+  public static int getLineCount(@NotNull final Document document) {
+    int len = document.getLineCount();
+    if (document.getTextLength() > 0 && document.getCharsSequence().charAt(document.getTextLength() - 1) == '\n') {
       len--;
     }
 
@@ -519,6 +528,9 @@ public class EditorHelper {
   }
 
   public static boolean isLineEmpty(@NotNull final Editor editor, final int line, final boolean allowBlanks) {
+    if (line >= 0 && line < getLineCount(editor)) {
+      return BlankLineIndex.getInstance(editor.getDocument()).isLineEmpty(line, allowBlanks);
+    }
     CharSequence chars = editor.getDocument().getCharsSequence();
     int offset = getLineStartOffset(editor, line);
     if (chars.charAt(offset) == '\n') {
@@ -0,0 +1,233 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.maddyhome.idea.vim.helper;
+
+import com.intellij.openapi.editor.LogicalPosition;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.maddyhome.idea.vim.common.CharacterPosition;
+import com.maddyhome.idea.vim.common.TextRange;
+import com.maddyhome.idea.vim.regexp.RegExp;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds all the matches of a compiled pattern in a range of lines of a document snapshot.
+ * <p/>
+ * Large ranges are split into chunks of lines that are searched in parallel in the fork/join pool, each by a matcher
+ * of its own. Every chunk is searched as if the previous one had ended without a match running into it. When a
+ * multi-line match of the previous chunk does run into it, the merge searches sequentially from the end of that match
+ * until it reaches a line start the chunk has also searched from, and takes the rest of the matches from the chunk.
+ * The result is the same as the one of a sequential search.
+ * <p/>
+ * The search checks the given progress indicator once per line, also in the chunks searched by the threads of the
+ * pool, so cancelling a search stops it inside a large file.
+ */
+public class MatchFinder {
+  private static final int CHUNK_LINES = 4096;
+
+  @NotNull private final DocumentSnapshot mySnapshot;
+  @NotNull private final RegExp.regprog_T myProgram;
+  private final boolean myIgnoreCase;
+  @Nullable private final LogicalPosition myCursor;
+  @Nullable private final ProgressIndicator myIndicator;
+
+  /**
+   * @param cursor    the cursor position used by the \%# pattern item, null if the text isn't shown in an editor
+   * @param indicator the progress indicator checked for the cancellation of the search, null if it can't be cancelled
+   */
+  public MatchFinder(@NotNull DocumentSnapshot snapshot, @NotNull RegExp.regprog_T program, boolean ignoreCase,
+                     @Nullable LogicalPosition cursor, @Nullable ProgressIndicator indicator) {
+    mySnapshot = snapshot;
+    myProgram = program;
+    myIgnoreCase = ignoreCase;
+    myCursor = cursor;
+    myIndicator = indicator;
+  }
+
+  /**
+   * Finds the matches that start on the lines from startLine to endLine, both inclusive, in the order of their offsets
+   */
+  @NotNull
+  public List<TextRange> findAll(int startLine, int endLine) {
+    final List<TextRange> results = new ArrayList<TextRange>();
+    if (endLine - startLine < 2 * CHUNK_LINES) {
+      final Scanner scanner = new Scanner(startLine, 0);
+      while (scanner.myLine <= endLine) {
+        final TextRange range = scanner.next();
+        if (range != null) {
+          results.add(range);
+        }
+      }
+      return results;
+    }
+
+    final Chunk[] chunks = new Chunk[(endLine - startLine) / CHUNK_LINES + 1];
+    for (int i = 0; i < chunks.length; i++) {
+      final int chunkStart = startLine + i * CHUNK_LINES;
+      chunks[i] = new Chunk(chunkStart, Math.min(chunkStart + CHUNK_LINES - 1, endLine));
+    }
+    ForkJoinPool.commonPool().invoke(new ChunkTask(chunks, 0, chunks.length));
+
+    int line = startLine;
+    int col = 0;
+    for (Chunk chunk : chunks) {
+      int first = col == 0 ? chunk.getMatchIndex(line) : -1;
+      if (first < 0) {
+        // A match of the previous chunk has ended inside this one
+        final Scanner scanner = new Scanner(line, col);
+        while (scanner.myLine <= chunk.myEndLine) {
+          final TextRange range = scanner.next();
+          if (range != null) {
+            results.add(range);
+          }
+          if (scanner.myCol == 0 && (first = chunk.getMatchIndex(scanner.myLine)) >= 0) {
+            break;
+          }
+        }
+        line = scanner.myLine;
+        col = scanner.myCol;
+        if (first < 0) {
+          continue;
+        }
+      }
+      results.addAll(chunk.myMatches.subList(first, chunk.myMatches.size()));
+      line = chunk.myNextLine;
+      col = chunk.myNextCol;
+    }
+    return results;
+  }
+
+  /**
+   * The search position of a sequential search
+   */
+  private class Scanner {
+    @NotNull private final RegExp myRegExp = new RegExp();
+    @NotNull private final RegExp.regmmatch_T myMatch = new RegExp.regmmatch_T();
+    private final int myLineCount = mySnapshot.getLineCount();
+    private int myLine;
+    private int myCol;
+
+    public Scanner(int line, int col) {
+      myMatch.regprog = myProgram;
+      myMatch.rmm_ic = myIgnoreCase;
+      myLine = line;
+      myCol = col;
+    }
+
+    /**
+     * Searches for a match from the current position on the current line and moves to the position for the next search
+     *
+     * @return the match or null if there is no match on the line
+     */
+    @Nullable
+    public TextRange next() {
+      if (myIndicator != null) {
+        myIndicator.checkCanceled();
+      }
+      final int matchedLines = myRegExp.vim_regexec_multi(myMatch, mySnapshot, myCursor, myLineCount, myLine, myCol);
+      if (matchedLines <= 0) {
+        myLine++;
+        myCol = 0;
+        return null;
+      }
+      final CharacterPosition startPos = new CharacterPosition(myLine + myMatch.startpos[0].lnum,
+                                                               myMatch.startpos[0].col);
+      final CharacterPosition endPos = new CharacterPosition(myLine + myMatch.endpos[0].lnum, myMatch.endpos[0].col);
+      final int start = mySnapshot.characterPositionToOffset(startPos);
+      final int end = mySnapshot.characterPositionToOffset(endPos);
+      if (start != end) {
+        myLine += matchedLines - 1;
+        myCol = endPos.column;
+      }
+      else {
+        myLine += matchedLines;
+        myCol = 0;
+      }
+      return new TextRange(start, end);
+    }
+  }
+
+  private class Chunk {
+    private final int myStartLine;
+    private final int myEndLine;
+    @NotNull private final List<TextRange> myMatches = new ArrayList<TextRange>();
+    /**
+     * The number of matches found before the search was at the start of each line of the chunk, -1 if it never was
+     */
+    @NotNull private final int[] myMatchIndexes;
+    private int myNextLine;
+    private int myNextCol;
+
+    public Chunk(int startLine, int endLine) {
+      myStartLine = startLine;
+      myEndLine = endLine;
+      myMatchIndexes = new int[endLine - startLine + 1];
+    }
+
+    public void search() {
+      Arrays.fill(myMatchIndexes, -1);
+      final Scanner scanner = new Scanner(myStartLine, 0);
+      while (scanner.myLine <= myEndLine) {
+        if (scanner.myCol == 0) {
+          myMatchIndexes[scanner.myLine - myStartLine] = myMatches.size();
+        }
+        final TextRange range = scanner.next();
+        if (range != null) {
+          myMatches.add(range);
+        }
+      }
+      myNextLine = scanner.myLine;
+      myNextCol = scanner.myCol;
+    }
+
+    public int getMatchIndex(int line) {
+      return line >= myStartLine && line <= myEndLine ? myMatchIndexes[line - myStartLine] : -1;
+    }
+  }
+
+  private static class ChunkTask extends RecursiveAction {
+    @NotNull private final Chunk[] myChunks;
+    private final int myFrom;
+    private final int myTo;
+
+    public ChunkTask(@NotNull Chunk[] chunks, int from, int to) {
+      myChunks = chunks;
+      myFrom = from;
+      myTo = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (myTo - myFrom == 1) {
+        myChunks[myFrom].search();
+      }
+      else {
+        final int mid = (myFrom + myTo) >>> 1;
+        invokeAll(new ChunkTask(myChunks, myFrom, mid), new ChunkTask(myChunks, mid, myTo));
+      }
+    }
+  }
+}
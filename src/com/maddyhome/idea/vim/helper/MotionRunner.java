@@ -0,0 +1,134 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.maddyhome.idea.vim.helper;
+
+import com.intellij.concurrency.JobScheduler;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes read-only motions over a snapshot of the document.
+ * <p/>
+ * The motion runs on the EDT first. If it takes longer than {@link #LATENCY_BUDGET} milliseconds, it is cancelled and
+ * computed again in a background thread under a modal progress that the user can cancel. Motions that need line
+ * numbers read them from the document and the {@link BlankLineIndex} and {@link SentenceBoundaryIndex}, so the
+ * background thread computes the motion in a read action and the document and the indexes don't change until it's
+ * done. Motions check for the cancellation with {@link #checkCanceled()}.
+ * <p/>
+ * The background computation starts the motion again, but the indexes keep the part that was built before the
+ * cancellation, so the work done on the EDT isn't lost.
+ * <p/>
+ * A motion used as the operand of a change, e.g. <code>d}</code> or <code>c)</code>, may run while the EDT holds the
+ * write access. A read action in another thread would wait for it, so in this case the motion is computed on the EDT
+ * without the time limit and without a progress that the user could cancel.
+ */
+public class MotionRunner {
+  /**
+   * The time in milliseconds a motion may block the EDT before it's moved to the background
+   */
+  public static final int LATENCY_BUDGET = 100;
+
+  /**
+   * A motion that only reads the text
+   */
+  public interface Motion {
+    /**
+     * @param chars  The snapshot of the document text
+     * @param offset The caret offset
+     * @return The offset to move the caret to or -1 if the motion failed
+     */
+    int compute(@NotNull CharSequence chars, int offset);
+  }
+
+  private MotionRunner() {}
+
+  /**
+   * Checks if the motion has been cancelled. Does nothing without a running IDE, e.g. in the benchmarks, where there is
+   * no progress manager to ask.
+   *
+   * @throws com.intellij.openapi.progress.ProcessCanceledException if the motion has been cancelled
+   */
+  public static void checkCanceled() {
+    if (ApplicationManager.getApplication() != null) {
+      ProgressManager.checkCanceled();
+    }
+  }
+
+  /**
+   * Computes the motion for the caret of the editor
+   *
+   * @param editor The editor
+   * @param motion The motion to compute
+   * @return The result of the motion or -1 if the motion failed or the user cancelled it
+   */
+  public static int run(@NotNull Editor editor, @NotNull final Motion motion) {
+    final CharSequence chars = editor.getDocument().getImmutableCharSequence();
+    final int offset = editor.getCaretModel().getOffset();
+    if (ApplicationManager.getApplication().isUnitTestMode()) {
+      return motion.compute(chars, offset);
+    }
+
+    final int[] res = {-1};
+    final Runnable compute = new Runnable() {
+      @Override
+      public void run() {
+        res[0] = motion.compute(chars, offset);
+      }
+    };
+
+    if (ApplicationManager.getApplication().isWriteAccessAllowed()) {
+      compute.run();
+      return res[0];
+    }
+
+    final ProgressIndicatorBase indicator = new ProgressIndicatorBase();
+    final ScheduledFuture<?> budget = JobScheduler.getScheduler().schedule(new Runnable() {
+      @Override
+      public void run() {
+        indicator.cancel();
+      }
+    }, LATENCY_BUDGET, TimeUnit.MILLISECONDS);
+    try {
+      ProgressManager.getInstance().runProcess(compute, indicator);
+      return res[0];
+    }
+    catch (ProcessCanceledException ignored) {
+    }
+    finally {
+      budget.cancel(false);
+    }
+
+    res[0] = -1;
+    final boolean completed = ProgressManager.getInstance().runProcessWithProgressSynchronously(new Runnable() {
+      @Override
+      public void run() {
+        ApplicationManager.getApplication().runReadAction(compute);
+      }
+    }, "Moving Caret", true, editor.getProject());
+    return completed ? res[0] : -1;
+  }
+}
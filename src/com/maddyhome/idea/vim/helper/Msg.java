@@ -68,6 +68,13 @@ public interface Msg {
   String E384 = "E384";
   String E385 = "E385";
   String e_patnotf2 = "e_patnotf2";
+  String match_count = "match_count";
+  String E35 = "E35";
+  String E480 = "E480";
+  String E683 = "E683";
+  String E42 = "E42";
+  String E553 = "E553";
+  String quickfix_entry = "quickfix_entry";
   String unkopt = "unkopt";
   String e_invarg = "e_invarg";
 }
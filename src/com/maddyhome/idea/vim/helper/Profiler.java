@@ -0,0 +1,204 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.helper;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects counts and latency histograms of keystrokes, actions, Ex commands, key mappings and searches.
+ * <p/>
+ * Profiling is off until started with ":profile start". When it is off {@link #start()} returns 0 and
+ * {@link #stop(String, String, long)} returns right away, so the instrumented code paths only pay for a field read.
+ */
+public class Profiler {
+  public static final String KEY = "key";
+  public static final String MAPPING = "mapping";
+  public static final String ACTION = "action";
+  public static final String EX = "ex";
+  public static final String SEARCH = "search";
+
+  private static final String[] CATEGORIES = {KEY, MAPPING, ACTION, EX, SEARCH};
+
+  /**
+   * Histogram buckets are powers of two of microseconds, the last one collects everything above 2^30 us
+   */
+  private static final int BUCKETS = 32;
+
+  private static volatile boolean enabled = false;
+  @NotNull private static final Map<String, Map<String, Stat>> stats = new TreeMap<String, Map<String, Stat>>();
+
+  private Profiler() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    Profiler.enabled = enabled;
+  }
+
+  /**
+   * Starts measuring an event
+   *
+   * @return The start time to be passed to {@link #stop(String, String, long)} or 0 if profiling is off
+   */
+  public static long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Records an event measured from the given start time
+   *
+   * @param category The category of the event, one of the constants of this class
+   * @param name     The name of the event within the category, for example an action id
+   * @param start    The time returned by {@link #start()}
+   */
+  public static void stop(@NotNull String category, @NotNull String name, long start) {
+    if (start == 0 || !enabled) {
+      return;
+    }
+    final long duration = System.nanoTime() - start;
+    synchronized (stats) {
+      Map<String, Stat> names = stats.get(category);
+      if (names == null) {
+        names = new TreeMap<String, Stat>();
+        stats.put(category, names);
+      }
+      Stat stat = names.get(name);
+      if (stat == null) {
+        stat = new Stat();
+        names.put(name, stat);
+      }
+      stat.add(duration);
+    }
+  }
+
+  /**
+   * Removes all the collected data
+   */
+  public static void clear() {
+    synchronized (stats) {
+      stats.clear();
+    }
+  }
+
+  /**
+   * Formats the collected data as a table with one line per event name
+   *
+   * @return The report text
+   */
+  @NotNull
+  public static String report() {
+    final StringBuilder res = new StringBuilder();
+    res.append(enabled ? "Profiling is on\n" : "Profiling is off\n");
+    synchronized (stats) {
+      for (String category : CATEGORIES) {
+        final Map<String, Stat> names = stats.get(category);
+        if (names == null) {
+          continue;
+        }
+        res.append('\n').append(category).append('\n');
+        res.append("   count   total ms     avg ms     p50 ms     p99 ms     max ms  name\n");
+        for (Map.Entry<String, Stat> entry : names.entrySet()) {
+          final Stat stat = entry.getValue();
+          res.append(String.format("%8d %10.3f %10.3f %10.3f %10.3f %10.3f  %s\n", stat.count, millis(stat.total),
+                                   millis(stat.total / stat.count), millis(stat.percentile(50)),
+                                   millis(stat.percentile(99)), millis(stat.max), entry.getKey()));
+        }
+      }
+    }
+    return res.toString();
+  }
+
+  /**
+   * Writes the report to a file
+   *
+   * @param file The file to write
+   * @throws IOException if the file cannot be written
+   */
+  public static void dump(@NotNull File file) throws IOException {
+    final Writer writer = new FileWriter(file);
+    try {
+      writer.write(report());
+    }
+    finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * The histogram bucket of a duration: bucket 0 holds durations below 1 us and bucket i holds durations from
+   * 2^(i-1) us to below 2^i us
+   *
+   * @param duration The duration in nanoseconds
+   */
+  public static int getBucket(long duration) {
+    final long micros = duration / 1000;
+    final int bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+    return Math.min(bucket, BUCKETS - 1);
+  }
+
+  /**
+   * The upper bound of the durations in a histogram bucket in nanoseconds, used as the estimate of the percentiles
+   */
+  public static long getBucketLimit(int bucket) {
+    return (1L << bucket) * 1000;
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1000000.0;
+  }
+
+  private static class Stat {
+    private int count;
+    private long total;
+    private long max;
+    @NotNull private final int[] buckets = new int[BUCKETS];
+
+    public void add(long duration) {
+      count++;
+      total += duration;
+      max = Math.max(max, duration);
+      buckets[getBucket(duration)]++;
+    }
+
+    /**
+     * Estimates the percentile as the upper bound of the bucket it falls into, capped by the maximum
+     */
+    public long percentile(int percent) {
+      final long threshold = ((long)count * percent + 99) / 100;
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets[i];
+        if (seen >= threshold) {
+          return Math.min(getBucketLimit(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
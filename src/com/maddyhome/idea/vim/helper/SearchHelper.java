@@ -24,6 +24,7 @@ import com.intellij.lang.Commenter;
 import com.intellij.lang.Language;
 import com.intellij.lang.LanguageCommenters;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.text.StringUtil;
@@ -659,6 +660,7 @@ public class SearchHelper {
 
     int res = pos;
     for (int i = 0; i < count; i++) {
+      MotionRunner.checkCanceled();
       res = findNextWordOne(chars, res, size, step, bigWord, spaceWords);
       if (res == pos || res == 0 || res == size - 1) {
         break;
@@ -1214,16 +1216,21 @@ public class SearchHelper {
   }
 
   public static int findNextSentenceStart(@NotNull Editor editor, int count, boolean countCurrent, boolean requireAll) {
+    return findNextSentenceStart(editor.getDocument(), editor.getCaretModel().getOffset(), count, countCurrent,
+                                 requireAll);
+  }
+
+  public static int findNextSentenceStart(@NotNull Document document, int start, int count, boolean countCurrent,
+                                          boolean requireAll) {
+    CharSequence chars = document.getCharsSequence();
     int dir = count > 0 ? 1 : -1;
     count = Math.abs(count);
     int total = count;
-    CharSequence chars = editor.getDocument().getCharsSequence();
-    int start = editor.getCaretModel().getOffset();
-    int max = EditorHelper.getFileSize(editor);
+    int max = getFileSize(chars);
 
     int res = start;
     for (; count > 0 && res >= 0 && res <= max - 1; count--) {
-      res = findSentenceStart(editor, chars, res, max, dir, countCurrent, count > 1);
+      res = findSentenceStart(document, chars, res, max, dir, countCurrent);
       if (res == 0 || res == max - 1) {
         count--;
         break;
@@ -1244,16 +1251,21 @@ public class SearchHelper {
   }
 
   public static int findNextSentenceEnd(@NotNull Editor editor, int count, boolean countCurrent, boolean requireAll) {
+    return findNextSentenceEnd(editor.getDocument(), editor.getCaretModel().getOffset(), count, countCurrent,
+                                 requireAll);
+  }
+
+  public static int findNextSentenceEnd(@NotNull Document document, int start, int count, boolean countCurrent,
+                                          boolean requireAll) {
+    CharSequence chars = document.getCharsSequence();
     int dir = count > 0 ? 1 : -1;
     count = Math.abs(count);
     int total = count;
-    CharSequence chars = editor.getDocument().getCharsSequence();
-    int start = editor.getCaretModel().getOffset();
-    int max = EditorHelper.getFileSize(editor);
+    int max = getFileSize(chars);
 
     int res = start;
     for (; count > 0 && res >= 0 && res <= max - 1; count--) {
-      res = findSentenceEnd(editor, chars, res, max, dir, countCurrent && count == total, count > 1);
+      res = findSentenceEnd(document, chars, res, max, dir, countCurrent && count == total);
       if (res == 0 || res == max - 1) {
         count--;
         break;
@@ -1273,18 +1285,17 @@ public class SearchHelper {
     return res;
   }
 
-  private static int findSentenceStart(@NotNull Editor editor, @NotNull CharSequence chars, int start, int max, int dir,
-                                       boolean countCurrent, boolean multiple) {
+  private static int findSentenceStart(@NotNull Document document, @NotNull CharSequence chars, int start, int max,
+                                       int dir, boolean countCurrent) {
     // Save off the next paragraph since a paragraph is a valid sentence.
-    int lline = editor.offsetToLogicalPosition(start).line;
-    int np = findNextParagraph(editor, lline, dir, false, multiple);
+    int np = findNextParagraph(document, document.getLineNumber(start), dir, false, max);
 
     int end;
     if (chars.charAt(start) == '\n' && !countCurrent) {
-      end = findSentenceEnd(editor, chars, start, max, -1, false, multiple);
+      end = findSentenceEnd(document, chars, start, max, -1, false);
     }
     else {
-      end = findSentenceEnd(editor, chars, start, max, -1, true, multiple);
+      end = findSentenceEnd(document, chars, start, max, -1, true);
     }
     if (end == start && countCurrent && chars.charAt(end) == '\n') {
       return end;
@@ -1320,10 +1331,10 @@ public class SearchHelper {
     }
 
     if (dir > 0) {
-      end = findSentenceEnd(editor, chars, start, max, dir, true, multiple);
+      end = findSentenceEnd(document, chars, start, max, dir, true);
     }
     else {
-      end = findSentenceEnd(editor, chars, pos, max, dir, countCurrent, multiple);
+      end = findSentenceEnd(document, chars, pos, max, dir, countCurrent);
     }
 
     int res = end + 1;
@@ -1359,9 +1370,9 @@ public class SearchHelper {
     return res;
   }
 
-  private static int findSentenceEnd(@NotNull Editor editor, @NotNull CharSequence chars, int start, int max, int dir,
-                                     boolean countCurrent, boolean multiple) {
-    if (dir > 0 && start >= EditorHelper.getFileSize(editor) - 1) {
+  private static int findSentenceEnd(@NotNull Document document, @NotNull CharSequence chars, int start, int max,
+                                     int dir, boolean countCurrent) {
+    if (dir > 0 && start >= max - 1) {
       return -1;
     }
     else if (dir < 0 && start <= 0) {
@@ -1369,8 +1380,7 @@ public class SearchHelper {
     }
 
     // Save off the next paragraph since a paragraph is a valid sentence.
-    int lline = editor.offsetToLogicalPosition(start).line;
-    int np = findNextParagraph(editor, lline, dir, false, multiple);
+    int np = findNextParagraph(document, document.getLineNumber(start), dir, false, max);
 
     // Sections are also end-of-sentence markers. However, { and } in column 1 don't count.
     // Since our section implementation only supports these and form-feed chars, we'll just
@@ -1378,10 +1388,13 @@ public class SearchHelper {
 
     int res = -1;
 
-    int offset = start;
+    // Only the characters kept in the index can end a sentence, jump from one to another
+    final SentenceBoundaryIndex index = SentenceBoundaryIndex.getInstance(document);
+    int offset = index.find(start, dir);
     boolean found = false;
     // Search forward looking for a candidate end-of-sentence character (., !, or ?)
     while (offset >= 0 && offset < max && !found) {
+      MotionRunner.checkCanceled();
       char ch = chars.charAt(offset);
       if (".!?".indexOf(ch) >= 0) {
         int end = offset; // Save where we found the punctuation.
@@ -1484,7 +1497,9 @@ public class SearchHelper {
         found = true;
       }
 
-      offset += dir;
+      if (!found) {
+        offset = index.find(offset + dir, dir);
+      }
     }
 
     // Now let's see which to return, the sentence we found or the paragraph we found.
@@ -1511,8 +1526,8 @@ public class SearchHelper {
     return res;
   }
 
-  private static int findSentenceRangeEnd(@NotNull Editor editor, @NotNull CharSequence chars, int start, int max, int count,
-                                          boolean isOuter, boolean oneway) {
+  private static int findSentenceRangeEnd(@NotNull Document document, @NotNull CharSequence chars, int start,
+                                          int max, int count, boolean isOuter, boolean oneway) {
     int dir = count > 0 ? 1 : -1;
     count = Math.abs(count);
     int total = count;
@@ -1521,10 +1536,10 @@ public class SearchHelper {
     boolean findend = dir < 1;
     // Even = start, odd = end
     int which;
-    int eprev = findSentenceEnd(editor, chars, start, max, -1, true, false);
-    int enext = findSentenceEnd(editor, chars, start, max, 1, true, false);
-    int sprev = findSentenceStart(editor, chars, start, max, -1, true, false);
-    int snext = findSentenceStart(editor, chars, start, max, 1, true, false);
+    int eprev = findSentenceEnd(document, chars, start, max, -1, true);
+    int enext = findSentenceEnd(document, chars, start, max, 1, true);
+    int sprev = findSentenceStart(document, chars, start, max, -1, true);
+    int snext = findSentenceStart(document, chars, start, max, 1, true);
     if (snext == eprev) // On blank line
     {
       if (dir < 0 && !oneway) {
@@ -1599,10 +1614,10 @@ public class SearchHelper {
     int res = start;
     for (; count > 0 && res >= 0 && res <= max - 1; count--) {
       if ((toggle && which % 2 == 1) || (isOuter && findend)) {
-        res = findSentenceEnd(editor, chars, res, max, dir, false, total > 1);
+        res = findSentenceEnd(document, chars, res, max, dir, false);
       }
       else {
-        res = findSentenceStart(editor, chars, res, max, dir, false, total > 1);
+        res = findSentenceStart(document, chars, res, max, dir, false);
       }
       if (res == 0 || res == max - 1) {
         count--;
@@ -1638,7 +1653,8 @@ public class SearchHelper {
 
   @NotNull
   public static TextRange findSentenceRange(@NotNull Editor editor, int count, boolean isOuter) {
-    CharSequence chars = editor.getDocument().getCharsSequence();
+    Document document = editor.getDocument();
+    CharSequence chars = document.getCharsSequence();
     int max = EditorHelper.getFileSize(editor);
     int offset = editor.getCaretModel().getOffset();
     int ssel = editor.getSelectionModel().getSelectionStart();
@@ -1649,110 +1665,97 @@ public class SearchHelper {
       // Forward selection
       if (offset == esel - 1) {
         start = ssel;
-        end = findSentenceRangeEnd(editor, chars, offset, max, count, isOuter, true);
+        end = findSentenceRangeEnd(document, chars, offset, max, count, isOuter, true);
 
         return new TextRange(start, end);
       }
       // Backward selection
       else {
         end = esel - 1;
-        start = findSentenceRangeEnd(editor, chars, offset, max, -count, isOuter, true);
+        start = findSentenceRangeEnd(document, chars, offset, max, -count, isOuter, true);
 
         return new TextRange(end, start);
       }
     }
     else {
-      int end = findSentenceRangeEnd(editor, chars, offset, max, count, isOuter, false);
+      int end = findSentenceRangeEnd(document, chars, offset, max, count, isOuter, false);
 
       boolean space = isOuter;
       if (Character.isSpaceChar(chars.charAt(end))) {
         space = false;
       }
 
-      int start = findSentenceRangeEnd(editor, chars, offset, max, -1, space, false);
+      int start = findSentenceRangeEnd(document, chars, offset, max, -1, space, false);
 
       return new TextRange(start, end);
     }
   }
 
   public static int findNextParagraph(@NotNull Editor editor, int count, boolean allowBlanks) {
-    int line = findNextParagraphLine(editor, count, allowBlanks);
+    return findNextParagraph(editor.getDocument(), editor.getCaretModel().getOffset(), count, allowBlanks);
+  }
 
-    int maxline = EditorHelper.getLineCount(editor);
-    if (line >= 0 && line < maxline) {
-      return EditorHelper.getLineStartOffset(editor, line);
-    }
-    else if (line == maxline) {
-      return count > 0 ? EditorHelper.getFileSize(editor) - 1 : 0;
-    }
-    else {
-      return -1;
-    }
+  /**
+   * Finds the start of the count-th next/previous empty line. It doesn't use the editor, so it can run outside of the
+   * EDT while the document doesn't change.
+   *
+   * @param document    The document to search in
+   * @param offset      The offset to start the search from
+   * @param count       The number of paragraphs to skip. Negative for backward searches
+   * @param allowBlanks Whether lines of whitespace count as empty lines
+   * @return The offset of the start of the line or -1 if the search failed before reaching the last paragraph
+   */
+  public static int findNextParagraph(@NotNull Document document, int offset, int count, boolean allowBlanks) {
+    final int line = findNextParagraphLine(document, document.getLineNumber(offset), count, allowBlanks);
+
+    return line >= 0 ? document.getLineStartOffset(line) : -1;
   }
 
-  private static int findNextParagraph(@NotNull Editor editor, int lline, int dir, boolean allowBlanks, boolean skipLines) {
-    int line = findNextParagraphLine(editor, lline, dir, allowBlanks, skipLines);
+  private static int findNextParagraph(@NotNull Document document, int line, int dir, boolean allowBlanks, int max) {
+    final int res = findNextParagraphLine(BlankLineIndex.getInstance(document), line, dir, allowBlanks);
 
-    if (line >= 0) {
-      return EditorHelper.getLineStartOffset(editor, line);
+    if (res >= 0) {
+      return document.getLineStartOffset(res);
     }
     else {
-      return dir > 0 ? EditorHelper.getFileSize(editor) - 1 : 0;
+      return dir > 0 ? max - 1 : 0;
     }
   }
 
   private static int findNextParagraphLine(@NotNull Editor editor, int count, boolean allowBlanks) {
-    int line = editor.getCaretModel().getLogicalPosition().line;
-    int maxline = EditorHelper.getLineCount(editor);
-    int dir = count > 0 ? 1 : -1;
-    boolean skipLines = count > 1;
+    return findNextParagraphLine(editor.getDocument(), editor.getCaretModel().getLogicalPosition().line, count,
+                                 allowBlanks);
+  }
+
+  private static int findNextParagraphLine(@NotNull Document document, int line, int count, boolean allowBlanks) {
+    final BlankLineIndex index = BlankLineIndex.getInstance(document);
+    final int dir = count > 0 ? 1 : -1;
     count = Math.abs(count);
-    int total = count;
 
     for (; count > 0 && line >= 0; count--) {
-      line = findNextParagraphLine(editor, line, dir, allowBlanks, skipLines);
+      line = findNextParagraphLine(index, line, dir, allowBlanks);
     }
 
-    if (total == 1 && line < 0) {
-      line = dir > 0 ? maxline - 1 : 0;
-    }
-    else if (total > 1 && count == 0 && line < 0) {
-      line = dir > 0 ? maxline - 1 : 0;
+    if (count == 0 && line < 0) {
+      line = dir > 0 ? Math.max(EditorHelper.getLineCount(document) - 1, 0) : 0;
     }
 
     return line;
   }
 
-  private static int findNextParagraphLine(@NotNull Editor editor, int line, int dir, boolean allowBlanks, boolean skipLines) {
-    int maxline = EditorHelper.getLineCount(editor);
-    int res = -1;
-
-    line = skipEmptyLines(editor, line, dir, allowBlanks);
-    while (line >= 0 && line < maxline && res == -1) {
-      if (EditorHelper.isLineEmpty(editor, line, allowBlanks)) {
-        res = line;
-        if (skipLines) {
-          line = skipEmptyLines(editor, line, dir, allowBlanks);
-        }
-      }
+  private static int findNextParagraphLine(@NotNull BlankLineIndex index, int line, int dir, boolean allowBlanks) {
+    MotionRunner.checkCanceled();
+    final int nonEmpty = index.findLine(line, dir, false, allowBlanks);
 
-      line += dir;
-    }
-
-    return res;
+    return nonEmpty >= 0 ? index.findLine(nonEmpty, dir, true, allowBlanks) : -1;
   }
 
-  private static int skipEmptyLines(@NotNull Editor editor, int line, int dir, boolean allowBlanks) {
-    int maxline = EditorHelper.getLineCount(editor);
-    while (line >= 0 && line < maxline) {
-      if (!EditorHelper.isLineEmpty(editor, line, allowBlanks)) {
-        return line;
-      }
-
-      line += dir;
-    }
-
-    return line;
+  /**
+   * Returns the size of the text without the final newline, the same as {@link EditorHelper#getFileSize(Editor)}
+   */
+  private static int getFileSize(@NotNull CharSequence chars) {
+    final int length = chars.length();
+    return length == 0 || chars.charAt(length - 1) != '\n' ? length : length - 1;
   }
 
   @Nullable
@@ -1815,7 +1818,7 @@ public class SearchHelper {
       int which = EditorHelper.isLineEmpty(editor, sline, true) ? 0 : 1;
       for (int i = 0; i < count; i++) {
         if (which % 2 == 1) {
-          eline = findNextParagraphLine(editor, eline, 1, true, false) - 1;
+          eline = findNextParagraphLine(BlankLineIndex.getInstance(editor.getDocument()), eline, 1, true) - 1;
           if (eline < 0) {
             if (i == count - 1) {
               eline = maxline - 1;
@@ -0,0 +1,171 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.maddyhome.idea.vim.helper;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.event.DocumentAdapter;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.util.Disposer;
+import gnu.trove.TIntArrayList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The offsets of the characters of a document that can end a sentence: '.', '!', '?', form feeds and the newlines of
+ * empty lines. The sentence motions and text objects jump between them instead of looking at every character.
+ * <p/>
+ * The index is built lazily in chunks as far as the queries need it. A change of the document drops the part of the
+ * index after the change, the part before it stays valid.
+ * <p/>
+ * The index listens to the document until {@link #release(Document)} is called for it when its last editor is closed.
+ */
+public class SentenceBoundaryIndex {
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  @NotNull private final Document myDocument;
+  @NotNull private final Disposable myDisposable = Disposer.newDisposable();
+  /**
+   * The sorted offsets of the boundary characters before {@link #myIndexedLength}
+   */
+  @NotNull private final TIntArrayList myOffsets = new TIntArrayList();
+  private int myIndexedLength = 0;
+
+  private SentenceBoundaryIndex(@NotNull Document document) {
+    myDocument = document;
+    final Application application = ApplicationManager.getApplication();
+    // There is no application in the benchmarks
+    if (application != null) {
+      Disposer.register(application, myDisposable);
+    }
+    document.addDocumentListener(new DocumentAdapter() {
+      @Override
+      public void documentChanged(@NotNull DocumentEvent e) {
+        // The change may add or remove a newline next to the character before it
+        invalidate(Math.max(e.getOffset() - 1, 0));
+      }
+    }, myDisposable);
+  }
+
+  @NotNull
+  public static synchronized SentenceBoundaryIndex getInstance(@NotNull Document document) {
+    SentenceBoundaryIndex res = EditorData.getSentenceBoundaryIndex(document);
+    if (res == null) {
+      res = new SentenceBoundaryIndex(document);
+      EditorData.setSentenceBoundaryIndex(document, res);
+    }
+    return res;
+  }
+
+  /**
+   * Drops the index of the document and stops listening to its changes, it is built again on the next use
+   */
+  public static synchronized void release(@NotNull Document document) {
+    final SentenceBoundaryIndex index = EditorData.getSentenceBoundaryIndex(document);
+    if (index != null) {
+      EditorData.setSentenceBoundaryIndex(document, null);
+      Disposer.dispose(index.myDisposable);
+    }
+  }
+
+  /**
+   * Finds the nearest boundary character starting from the offset
+   *
+   * @param offset The offset to start from, it is included in the search
+   * @param dir    The direction of the search
+   * @return The offset of the character or -1 if there are no more boundary characters in this direction
+   */
+  public synchronized int find(int offset, int dir) {
+    final int length = myDocument.getTextLength();
+    if (dir > 0) {
+      if (offset < 0) {
+        offset = 0;
+      }
+      while (true) {
+        final int i = search(offset);
+        if (i < myOffsets.size()) {
+          return myOffsets.get(i);
+        }
+        if (myIndexedLength >= length) {
+          return -1;
+        }
+        extend(Math.max(offset, myIndexedLength) + CHUNK_SIZE);
+      }
+    }
+    else {
+      if (offset < 0) {
+        return -1;
+      }
+      offset = Math.min(offset, length - 1);
+      if (offset >= myIndexedLength) {
+        extend(offset + 1);
+      }
+      final int i = search(offset + 1) - 1;
+      return i >= 0 ? myOffsets.get(i) : -1;
+    }
+  }
+
+  /**
+   * Returns the index of the first offset that is greater than or equal to the given one
+   */
+  private int search(int offset) {
+    int low = 0;
+    int high = myOffsets.size();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (myOffsets.get(mid) < offset) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void extend(int end) {
+    final CharSequence chars = myDocument.getCharsSequence();
+    final int length = chars.length();
+    end = Math.min(end, length);
+    for (int offset = myIndexedLength; offset < end; offset++) {
+      if (offset % CHUNK_SIZE == 0) {
+        // Keep the index consistent if the motion is cancelled
+        myIndexedLength = offset;
+        MotionRunner.checkCanceled();
+      }
+      final char ch = chars.charAt(offset);
+      if (ch == '.' || ch == '!' || ch == '?' || ch == '\u000C' ||
+          ch == '\n' && (offset > 0 && chars.charAt(offset - 1) == '\n' ||
+                         offset + 1 < length && chars.charAt(offset + 1) == '\n')) {
+        myOffsets.add(offset);
+      }
+    }
+    myIndexedLength = Math.max(myIndexedLength, end);
+  }
+
+  private synchronized void invalidate(int offset) {
+    if (offset < myIndexedLength) {
+      final int i = search(offset);
+      myOffsets.remove(i, myOffsets.size() - i);
+      myIndexedLength = offset;
+    }
+  }
+}
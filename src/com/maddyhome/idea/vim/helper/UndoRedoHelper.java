@@ -20,9 +20,27 @@ package com.maddyhome.idea.vim.helper;
 
 import com.intellij.openapi.actionSystem.DataContext;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.command.CommandAdapter;
+import com.intellij.openapi.command.CommandEvent;
+import com.intellij.openapi.command.undo.UndoManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.event.DocumentAdapter;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
 import com.intellij.openapi.fileEditor.FileEditor;
+import com.intellij.openapi.fileEditor.impl.text.TextEditorProvider;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.maddyhome.idea.vim.VimPlugin;
+import com.maddyhome.idea.vim.option.Options;
+import gnu.trove.TLongArrayList;
+import gnu.trove.TLongLongHashMap;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author oleg
@@ -30,24 +48,244 @@ import org.jetbrains.annotations.NotNull;
 public class UndoRedoHelper {
 
   public static boolean undo(@NotNull final DataContext context) {
+    return undo(context, 1);
+  }
+
+  public static boolean redo(@NotNull final DataContext context) {
+    return redo(context, 1);
+  }
+
+  /**
+   * Undoes count changes. The search highlights are updated once for all of them.
+   *
+   * @return false if there was nothing to undo
+   */
+  public static boolean undo(@NotNull final DataContext context, final int count) {
+    return undoRedo(context, true, new StepCondition() {
+      @Override
+      public boolean shouldStep(int step) {
+        return step < count;
+      }
+    });
+  }
+
+  /**
+   * Redoes count changes. The search highlights are updated once for all of them.
+   *
+   * @return false if there was nothing to redo
+   */
+  public static boolean redo(@NotNull final DataContext context, final int count) {
+    return undoRedo(context, false, new StepCondition() {
+      @Override
+      public boolean shouldStep(int step) {
+        return step < count;
+      }
+    });
+  }
+
+  /**
+   * Undoes the changes until the text is the one that was there the given time ago
+   *
+   * @return false if there was nothing to undo
+   */
+  public static boolean undoTime(@NotNull final DataContext context, final long millis) {
+    final Document document = getDocument(context);
+    if (document == null || getChangeTime(document) == 0) {
+      return false;
+    }
+    final long time = getChangeTime(document) - millis;
+    return undoRedo(context, true, new StepCondition() {
+      @Override
+      public boolean shouldStep(int step) {
+        return getChangeTime(document) > time;
+      }
+    });
+  }
+
+  /**
+   * Redoes the changes made in the given time after the current text, the first change after that time isn't redone
+   *
+   * @return false if there was nothing to redo
+   */
+  public static boolean redoTime(@NotNull final DataContext context, final long millis) {
+    final Document document = getDocument(context);
+    final FileEditor fileEditor = getFileEditor(context);
     final Project project = PlatformDataKeys.PROJECT.getData(context);
-    final FileEditor fileEditor = PlatformDataKeys.FILE_EDITOR.getData(context);
-    final com.intellij.openapi.command.undo.UndoManager undoManager = com.intellij.openapi.command.undo.UndoManager.getInstance(project);
-    if (fileEditor != null && undoManager.isUndoAvailable(fileEditor)) {
-      undoManager.undo(fileEditor);
-      return true;
+    if (document == null || fileEditor == null || project == null) {
+      return false;
+    }
+    final UndoManager undoManager = UndoManager.getInstance(project);
+    final long time = getChangeTime(document) + millis;
+    final boolean res = undoRedo(context, false, new StepCondition() {
+      @Override
+      public boolean shouldStep(int step) {
+        return getChangeTime(document) <= time;
+      }
+    });
+    // The time of a change is known only after it has been redone, so the last one may have gone too far
+    if (res && getChangeTime(document) > time && undoManager.isUndoAvailable(fileEditor)) {
+      undo(context, 1);
     }
-    return false;
+    return res;
   }
 
-  public static boolean redo(@NotNull final DataContext context) {
+  /**
+   * Undoes or redoes the changes as long as the condition holds. The steps are made in a batch, so the search
+   * highlights are updated only after the last one.
+   */
+  private static boolean undoRedo(@NotNull DataContext context, final boolean undo,
+                                  @NotNull final StepCondition condition) {
     final Project project = PlatformDataKeys.PROJECT.getData(context);
+    final FileEditor fileEditor = getFileEditor(context);
+    if (project == null || fileEditor == null) {
+      return false;
+    }
+    final UndoManager undoManager = UndoManager.getInstance(project);
+    if (!isAvailable(undoManager, fileEditor, undo)) {
+      return false;
+    }
+    final Editor editor = PlatformDataKeys.EDITOR.getData(context);
+    final Runnable steps = new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; isAvailable(undoManager, fileEditor, undo) && condition.shouldStep(i); i++) {
+          if (undo) {
+            undoManager.undo(fileEditor);
+          }
+          else {
+            undoManager.redo(fileEditor);
+          }
+        }
+      }
+    };
+    if (editor != null) {
+      VimPlugin.getSearch().runBatchChange(editor, steps);
+    }
+    else {
+      steps.run();
+    }
+    return true;
+  }
+
+  private static boolean isAvailable(@NotNull UndoManager undoManager, @NotNull FileEditor fileEditor, boolean undo) {
+    return undo ? undoManager.isUndoAvailable(fileEditor) : undoManager.isRedoAvailable(fileEditor);
+  }
+
+  /**
+   * The file editor of the context or the text editor of its editor if the context has no file editor, e.g. for the
+   * contexts of ex commands
+   */
+  @Nullable
+  private static FileEditor getFileEditor(@NotNull DataContext context) {
     final FileEditor fileEditor = PlatformDataKeys.FILE_EDITOR.getData(context);
-    final com.intellij.openapi.command.undo.UndoManager undoManager = com.intellij.openapi.command.undo.UndoManager.getInstance(project);
-    if (fileEditor != null && undoManager.isRedoAvailable(fileEditor)) {
-      undoManager.redo(fileEditor);
-      return true;
+    if (fileEditor != null) {
+      return fileEditor;
+    }
+    final Editor editor = PlatformDataKeys.EDITOR.getData(context);
+    return editor != null ? TextEditorProvider.getInstance().getTextEditor(editor) : null;
+  }
+
+  @Nullable
+  private static Document getDocument(@NotNull DataContext context) {
+    final Editor editor = PlatformDataKeys.EDITOR.getData(context);
+    return editor != null ? editor.getDocument() : null;
+  }
+
+  /**
+   * The time when the current text of the document was made, 0 if it was there before the changes we have seen.
+   * <p/>
+   * An undo restores the modification stamp the document had before the change, so the stamp identifies the text
+   * after any number of undos and redos.
+   */
+  private static long getChangeTime(@NotNull Document document) {
+    final ChangeTimes times = document.getUserData(CHANGE_TIMES);
+    if (times == null) {
+      return 0;
+    }
+    return times.myTimes.get(document.getModificationStamp());
+  }
+
+  private interface StepCondition {
+    boolean shouldStep(int step);
+  }
+
+  /**
+   * The times of the texts of a document by their modification stamps, at most 'undolevels' + 1 of them
+   */
+  private static class ChangeTimes {
+    @NotNull private final TLongLongHashMap myTimes = new TLongLongHashMap();
+    /**
+     * The stamps in the order they were recorded, the oldest ones are dropped first
+     */
+    @NotNull private final TLongArrayList myStamps = new TLongArrayList();
+
+    void record(long stamp, long time, int limit) {
+      if (myTimes.containsKey(stamp)) {
+        return;
+      }
+      myTimes.put(stamp, time);
+      myStamps.add(stamp);
+      final int extra = myStamps.size() - limit;
+      if (extra > 0) {
+        for (int i = 0; i < extra; i++) {
+          myTimes.remove(myStamps.get(i));
+        }
+        myStamps.remove(0, extra);
+      }
     }
-    return false;
   }
+
+  /**
+   * Records the time of the text of each document changed by a command for :earlier and :later.
+   * <p/>
+   * The document listener only remembers which documents have changed, their times are recorded once when the command
+   * finishes. Undo and redo commands bring back the stamp of a text we have already seen, so they aren't recorded.
+   */
+  public static class ChangeTimeRecorder extends CommandAdapter {
+    @NotNull private final Set<Document> myChangedDocuments = new HashSet<Document>();
+    @NotNull private final DocumentListener myDocumentListener = new DocumentAdapter() {
+      @Override
+      public void documentChanged(@NotNull DocumentEvent event) {
+        myChangedDocuments.add(event.getDocument());
+      }
+    };
+
+    @NotNull
+    public DocumentListener getDocumentListener() {
+      return myDocumentListener;
+    }
+
+    @Override
+    public void commandFinished(@NotNull CommandEvent event) {
+      recordChanges(event.getProject());
+    }
+
+    @Override
+    public void undoTransparentActionFinished() {
+      recordChanges(null);
+    }
+
+    private void recordChanges(@Nullable Project project) {
+      if (myChangedDocuments.isEmpty()) {
+        return;
+      }
+      final UndoManager undoManager =
+        project != null ? UndoManager.getInstance(project) : UndoManager.getGlobalInstance();
+      if (!undoManager.isUndoInProgress() && !undoManager.isRedoInProgress()) {
+        final int limit = Math.max(Options.getInstance().getUndoLevelsOption().value(), 0) + 1;
+        final long time = System.currentTimeMillis();
+        for (Document document : myChangedDocuments) {
+          ChangeTimes times = document.getUserData(CHANGE_TIMES);
+          if (times == null) {
+            times = new ChangeTimes();
+            document.putUserData(CHANGE_TIMES, times);
+          }
+          times.record(document.getModificationStamp(), time, limit);
+        }
+      }
+      myChangedDocuments.clear();
+    }
+  }
+
+  private static final Key<ChangeTimes> CHANGE_TIMES = new Key<ChangeTimes>("IdeaVim.changeTimes");
 }
@@ -27,11 +27,6 @@ import javax.swing.*;
  * This node of the key/action tree will contain one or more child nodes.
  */
 public class BranchNode extends ParentNode {
-  /**
-   * This is a special key for an argument child node
-   */
-  public static final String ARGUMENT = "argument";
-
   /**
    * Creates the branch node for the given keystroke
    *
@@ -54,17 +49,25 @@ public class BranchNode extends ParentNode {
    * @return The child mapped to key or an argument node or null if no such mapping found
    */
   @Nullable
-  public Node getChild(@NotNull Object key) {
+  public Node getChild(@NotNull KeyStroke key) {
     Node res = super.getChild(key);
     if (res == null) {
-      res = children.get(ARGUMENT);
+      res = argumentNode;
     }
 
     return res;
   }
 
+  @Nullable
   public Node getArgumentNode() {
-    return children.get(ARGUMENT);
+    return argumentNode;
+  }
+
+  /**
+   * Sets the node used for any key that doesn't match a child
+   */
+  public void setArgumentNode(@Nullable Node argumentNode) {
+    this.argumentNode = argumentNode;
   }
 
   /**
@@ -87,16 +90,20 @@ public class BranchNode extends ParentNode {
     res.append(key);
     res.append(", children=[");
     int cnt = 0;
-    for (Object key : children.keySet()) {
-      Node node = children.get(key);
+    for (Node node : getChildren()) {
       if (cnt > 0) {
         res.append(", ");
       }
-      res.append(key);
-      res.append(" -> ");
       res.append(node);
       cnt++;
     }
+    if (argumentNode != null) {
+      if (cnt > 0) {
+        res.append(", ");
+      }
+      res.append("argument -> ");
+      res.append(argumentNode);
+    }
     res.append("]");
 
     return res.toString();
@@ -104,4 +111,5 @@ public class BranchNode extends ParentNode {
 
   protected final KeyStroke key;
   protected final int flags;
+  @Nullable private Node argumentNode = null;
 }
@@ -33,6 +33,10 @@ import java.util.*;
 public class KeyMapping implements Iterable<List<KeyStroke>> {
   @NotNull private final Map<ImmutableList<KeyStroke>, MappingInfo> myKeys = new HashMap<ImmutableList<KeyStroke>, MappingInfo>();
   @NotNull private final Map<ImmutableList<KeyStroke>, Integer> myPrefixes = new HashMap<ImmutableList<KeyStroke>, Integer>();
+  /**
+   * The number of mappings for each first key, it allows to skip keys that don't start any mapping without copying
+   */
+  @NotNull private final Map<KeyStroke, Integer> myFirstKeys = new HashMap<KeyStroke, Integer>();
 
   @NotNull
   @Override
@@ -47,8 +51,12 @@ public class KeyMapping implements Iterable<List<KeyStroke>> {
 
   public void put(@NotNull Set<MappingMode> mappingModes, @NotNull List<KeyStroke> fromKeys,
                   @Nullable List<KeyStroke> toKeys, @Nullable VimExtensionHandler extensionHandler, boolean recursive) {
-    myKeys.put(ImmutableList.copyOf(fromKeys),
-               new MappingInfo(mappingModes, fromKeys, toKeys, extensionHandler, recursive));
+    final MappingInfo previous = myKeys.put(ImmutableList.copyOf(fromKeys),
+                                            new MappingInfo(mappingModes, fromKeys, toKeys, extensionHandler, recursive));
+    if (previous == null && !fromKeys.isEmpty()) {
+      final Integer count = myFirstKeys.get(fromKeys.get(0));
+      myFirstKeys.put(fromKeys.get(0), count != null ? count + 1 : 1);
+    }
     List<KeyStroke> prefix = new ArrayList<KeyStroke>();
     final int prefixLength = fromKeys.size() - 1;
     for (int i = 0; i < prefixLength; i++) {
@@ -58,7 +66,16 @@ public class KeyMapping implements Iterable<List<KeyStroke>> {
   }
 
   public void delete(@NotNull List<KeyStroke> keys) {
-    myKeys.remove(ImmutableList.copyOf(keys));
+    final MappingInfo removed = myKeys.remove(ImmutableList.copyOf(keys));
+    if (removed != null && !keys.isEmpty()) {
+      final Integer count = myFirstKeys.get(keys.get(0));
+      if (count != null && count > 1) {
+        myFirstKeys.put(keys.get(0), count - 1);
+      }
+      else {
+        myFirstKeys.remove(keys.get(0));
+      }
+    }
     List<KeyStroke> prefix = new ArrayList<KeyStroke>();
     final int prefixLength = keys.size() - 1;
     for (int i = 0; i < prefixLength; i++) {
@@ -67,6 +84,13 @@ public class KeyMapping implements Iterable<List<KeyStroke>> {
     }
   }
 
+  /**
+   * Checks if there is a mapping that starts with the key
+   */
+  public boolean hasMappingStartingWith(@NotNull KeyStroke key) {
+    return myFirstKeys.containsKey(key);
+  }
+
   public boolean isPrefix(@NotNull List<KeyStroke> keys) {
     return myPrefixes.get(ImmutableList.copyOf(keys)) != null;
   }
@@ -0,0 +1,140 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.maddyhome.idea.vim.key;
+
+import com.intellij.openapi.editor.Editor;
+import com.maddyhome.idea.vim.KeyHandler;
+import com.maddyhome.idea.vim.option.Options;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.util.*;
+
+/**
+ * Resolves the pending keys of mapping prefixes when the mapping timeout elapses.
+ * <p/>
+ * The deadlines of all the editors share a single timer with a single listener. Typing more keys of a prefix only moves
+ * the deadline of the editor, the timer isn't restarted unless the new deadline is earlier than the one it is armed
+ * for. When the timer fires too early, it is re-armed for the earliest remaining deadline.
+ *
+ * @see :help 'timeout'
+ * @see :help 'ttimeout'
+ */
+public class MappingTimeoutScheduler {
+  private MappingTimeoutScheduler() {
+    myTimer = new Timer(0, new ActionListener() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        fire();
+      }
+    });
+    myTimer.setRepeats(false);
+  }
+
+  @NotNull
+  public static MappingTimeoutScheduler getInstance() {
+    if (ourInstance == null) {
+      ourInstance = new MappingTimeoutScheduler();
+    }
+    return ourInstance;
+  }
+
+  /**
+   * Gets the time to wait for the next key of a mapping prefix.
+   * <p/>
+   * There are no terminal key codes in the IDE, so a prefix starting with <Esc>, the way key codes do in a terminal,
+   * is resolved using 'ttimeout' and 'ttimeoutlen'. It lets mappings like "imap <Esc>j" coexist with a quick <Esc>.
+   *
+   * @param keys The pending keys
+   * @return The timeout in milliseconds or -1 if the keys should wait for the next key forever
+   */
+  public static int getTimeout(@NotNull List<KeyStroke> keys) {
+    final Options options = Options.getInstance();
+    final boolean timeout = options.getTimeoutOption().getValue();
+    final int timeoutLength = options.getTimeoutLenOption().value();
+    if (!keys.isEmpty() && keys.get(0).getKeyCode() == KeyEvent.VK_ESCAPE) {
+      if (!timeout && !options.getTtimeoutOption().getValue()) {
+        return -1;
+      }
+      final int keyCodeTimeoutLength = options.getTtimeoutLenOption().value();
+      return keyCodeTimeoutLength >= 0 ? keyCodeTimeoutLength : timeoutLength;
+    }
+    return timeout ? timeoutLength : -1;
+  }
+
+  /**
+   * Sets the deadline for the pending keys of the editor, it replaces the previous deadline if any
+   *
+   * @param editor  The editor with pending keys
+   * @param timeout The timeout in milliseconds
+   */
+  public void schedule(@NotNull Editor editor, int timeout) {
+    final long deadline = System.currentTimeMillis() + timeout;
+    myDeadlines.put(editor, deadline);
+    if (!myTimer.isRunning() || deadline < myArmedDeadline) {
+      arm(deadline);
+    }
+  }
+
+  /**
+   * Removes the deadline of the editor. The timer is left running, it's likely to be needed again for the next key
+   * and firing with no expired deadlines does nothing.
+   */
+  public void cancel(@NotNull Editor editor) {
+    myDeadlines.remove(editor);
+  }
+
+  private void fire() {
+    final long now = System.currentTimeMillis();
+    final List<Editor> expired = new ArrayList<Editor>();
+    long nextDeadline = Long.MAX_VALUE;
+    for (Iterator<Map.Entry<Editor, Long>> iterator = myDeadlines.entrySet().iterator(); iterator.hasNext(); ) {
+      final Map.Entry<Editor, Long> entry = iterator.next();
+      if (entry.getValue() <= now) {
+        expired.add(entry.getKey());
+        iterator.remove();
+      }
+      else {
+        nextDeadline = Math.min(nextDeadline, entry.getValue());
+      }
+    }
+    if (nextDeadline != Long.MAX_VALUE) {
+      arm(nextDeadline);
+    }
+    for (Editor editor : expired) {
+      KeyHandler.getInstance().handlePendingMappingTimeout(editor);
+    }
+  }
+
+  private void arm(long deadline) {
+    myArmedDeadline = deadline;
+    myTimer.setInitialDelay((int)Math.max(0, deadline - System.currentTimeMillis()));
+    myTimer.restart();
+  }
+
+  @NotNull private final Timer myTimer;
+  @NotNull private final Map<Editor, Long> myDeadlines = new HashMap<Editor, Long>();
+  private long myArmedDeadline;
+
+  private static MappingTimeoutScheduler ourInstance;
+}
@@ -18,23 +18,40 @@
 
 package com.maddyhome.idea.vim.key;
 
+import gnu.trove.TLongObjectHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * This abstract node is used as a base for any node that can contain child nodes
+ * This abstract node is used as a base for any node that can contain child nodes.
+ * <p/>
+ * Children for plain ASCII characters are stored in an array indexed by the character, other keystrokes are packed
+ * into a long, so looking up a child neither hashes a keystroke object nor allocates.
  */
 public abstract class ParentNode implements Node {
+  private static final int ASCII_SIZE = 128;
+
   /**
    * This adds a child node keyed by the supplied key
    *
    * @param child The child node
    * @param key   The key to map the child to
    */
-  public void addChild(@NotNull Node child, @NotNull Object key) {
-    children.put(key, child);
+  public void addChild(@NotNull Node child, @NotNull KeyStroke key) {
+    final int index = getAsciiIndex(key);
+    if (index >= 0) {
+      if (asciiChildren == null) {
+        asciiChildren = new Node[ASCII_SIZE];
+      }
+      asciiChildren[index] = child;
+    }
+    else {
+      otherChildren.put(pack(key), child);
+    }
   }
 
   /**
@@ -44,9 +61,49 @@ public abstract class ParentNode implements Node {
    * @return The child mapped to key or null if no such mapping found
    */
   @Nullable
-  public Node getChild(@NotNull Object key) {
-    return children.get(key);
+  public Node getChild(@NotNull KeyStroke key) {
+    final int index = getAsciiIndex(key);
+    if (index >= 0) {
+      return asciiChildren != null ? asciiChildren[index] : null;
+    }
+    return otherChildren.isEmpty() ? null : otherChildren.get(pack(key));
+  }
+
+  /**
+   * Returns all the child nodes in no particular order
+   */
+  @NotNull
+  protected List<Node> getChildren() {
+    final List<Node> res = new ArrayList<Node>();
+    if (asciiChildren != null) {
+      for (Node child : asciiChildren) {
+        if (child != null) {
+          res.add(child);
+        }
+      }
+    }
+    for (Object child : otherChildren.getValues()) {
+      res.add((Node)child);
+    }
+    return res;
+  }
+
+  private static int getAsciiIndex(@NotNull KeyStroke key) {
+    final char c = key.getKeyChar();
+    return c < ASCII_SIZE && key.getKeyCode() == 0 && key.getModifiers() == 0 && !key.isOnKeyRelease() ? c : -1;
+  }
+
+  /**
+   * Packs all the fields compared by {@link KeyStroke#equals(Object)}: the character takes 16 bits, the key code 25 bits
+   * (enough for the extended key codes of Unicode characters), the modifiers 22 bits and the key release flag 1 bit.
+   */
+  private static long pack(@NotNull KeyStroke key) {
+    return ((long)key.getKeyChar() << 48) |
+           ((long)(key.getKeyCode() & 0x1FFFFFF) << 23) |
+           ((long)(key.getModifiers() & 0x3FFFFF) << 1) |
+           (key.isOnKeyRelease() ? 1 : 0);
   }
 
-  @NotNull protected final HashMap<Object, Node> children = new HashMap<Object, Node>();
+  @Nullable private Node[] asciiChildren = null;
+  @NotNull private final TLongObjectHashMap<Node> otherChildren = new TLongObjectHashMap<Node>();
 }
@@ -30,13 +30,10 @@ public class RootNode extends ParentNode {
     res.append("RootNode[");
     res.append("children=[");
     int cnt = 0;
-    for (Object key : children.keySet()) {
-      Node node = children.get(key);
+    for (Node node : getChildren()) {
       if (cnt > 0) {
         res.append(", ");
       }
-      res.append(key);
-      res.append(" -> ");
       res.append(node);
       cnt++;
     }
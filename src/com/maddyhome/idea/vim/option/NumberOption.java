@@ -18,6 +18,8 @@
 
 package com.maddyhome.idea.vim.option;
 
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.util.Key;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -46,11 +48,26 @@ public class NumberOption extends TextOption {
    * @param max    The option's maximum value
    */
   NumberOption(String name, String abbrev, int dflt, int min, int max) {
+    this(name, abbrev, dflt, min, max, false);
+  }
+
+  /**
+   * Creates a number option
+   *
+   * @param name   The name of the option
+   * @param abbrev The short name
+   * @param dflt   The default value
+   * @param min    The option's minimum value
+   * @param max    The option's maximum value
+   * @param local  True if an editor can have its own value set by :setlocal
+   */
+  NumberOption(String name, String abbrev, int dflt, int min, int max, boolean local) {
     super(name, abbrev);
     this.dflt = dflt;
     this.value = dflt;
     this.min = min;
     this.max = Integer.MAX_VALUE;
+    this.localKey = local ? new Key<Integer>("IdeaVim.option." + name) : null;
   }
 
   /**
@@ -71,6 +88,75 @@ public class NumberOption extends TextOption {
     return value;
   }
 
+  /**
+   * Gets the option's value for the editor, it is the editor's local value if one has been set
+   *
+   * @param editor The editor, null for the global value
+   * @return The option's value
+   */
+  public int value(@Nullable Editor editor) {
+    if (editor != null && localKey != null) {
+      final Integer local = editor.getUserData(localKey);
+      if (local != null) {
+        return local;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Checks if an editor can have its own value of the option
+   */
+  public boolean isLocal() {
+    return localKey != null;
+  }
+
+  /**
+   * Sets the editor's local value. The operator is one of the :set operators: '=', '+', '-' or '^'.
+   *
+   * @param editor The editor
+   * @param op     The operator
+   * @param val    The value as for {@link #set(String)}
+   * @return True if the option has local values and the result is a number in range. False if not.
+   */
+  public boolean setLocal(@NotNull Editor editor, char op, String val) {
+    final Integer num = asNumber(val);
+    if (localKey == null || num == null) {
+      return false;
+    }
+
+    final int current = value(editor);
+    final int res;
+    switch (op) {
+      case '+':
+        res = current + num;
+        break;
+      case '-':
+        res = current - num;
+        break;
+      case '^':
+        res = current * num;
+        break;
+      default:
+        res = num;
+    }
+    if (!inRange(res)) {
+      return false;
+    }
+
+    editor.putUserData(localKey, res);
+    return true;
+  }
+
+  /**
+   * Removes the editor's local value, the editor uses the global value again
+   */
+  public void resetLocal(@NotNull Editor editor) {
+    if (localKey != null) {
+      editor.putUserData(localKey, null);
+    }
+  }
+
   /**
    * Sets the option's value if the value is in the proper range
    *
@@ -225,6 +311,13 @@ public class NumberOption extends TextOption {
     return "  " + getName() + "=" + value;
   }
 
+  @NotNull
+  @Override
+  public String toString(@Nullable Editor editor) {
+    return "  " + getName() + "=" + value(editor);
+  }
+
+  @Nullable private final Key<Integer> localKey;
   private final int dflt;
   private int value;
   private final int min;
@@ -18,7 +18,9 @@
 
 package com.maddyhome.idea.vim.option;
 
+import com.intellij.openapi.editor.Editor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -77,6 +79,17 @@ public abstract class Option {
     return abbrev;
   }
 
+  /**
+   * The display value of the option as it applies to the editor, options that can have a local value show it
+   *
+   * @param editor The editor, null to show the global value
+   * @return The option's display value
+   */
+  @NotNull
+  public String toString(@Nullable Editor editor) {
+    return toString();
+  }
+
   /**
    * Checks to see if the option's current value equals the default value
    *
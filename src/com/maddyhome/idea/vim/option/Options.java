@@ -40,6 +40,9 @@ public class Options {
   public static final String CLIPBOARD = "clipboard";
   public static final String INCREMENTAL_SEARCH = "incsearch";
   public static final String TIMEOUT = "timeout";
+  public static final String TIMEOUT_LENGTH = "timeoutlen";
+  public static final String TTIMEOUT = "ttimeout";
+  public static final String TTIMEOUT_LENGTH = "ttimeoutlen";
   public static final String VIMINFO = "viminfo";
 
   /**
@@ -47,11 +50,18 @@ public class Options {
    *
    * @return The singleton
    */
-  public synchronized static Options getInstance() {
-    if (ourInstance == null) {
-      ourInstance = new Options();
+  public static Options getInstance() {
+    Options instance = ourInstance;
+    if (instance == null) {
+      synchronized (Options.class) {
+        instance = ourInstance;
+        if (instance == null) {
+          instance = new Options();
+          ourInstance = instance;
+        }
+      }
     }
-    return ourInstance;
+    return instance;
   }
 
   /**
@@ -98,6 +108,104 @@ public class Options {
     return null;
   }
 
+  // The options read on every keystroke or caret move. The option objects are created once, so reading their values
+  // through these handles is a field access rather than a lookup by name.
+
+  @NotNull
+  public NumberOption getScrollOption() {
+    return scroll;
+  }
+
+  @NotNull
+  public NumberOption getScrollJumpOption() {
+    return scrollJump;
+  }
+
+  @NotNull
+  public NumberOption getScrollOffOption() {
+    return scrollOff;
+  }
+
+  @NotNull
+  public NumberOption getSideScrollOption() {
+    return sideScroll;
+  }
+
+  @NotNull
+  public NumberOption getSideScrollOffOption() {
+    return sideScrollOff;
+  }
+
+  @NotNull
+  public BoundStringOption getSelectionOption() {
+    return selection;
+  }
+
+  @NotNull
+  public ToggleOption getIgnoreCaseOption() {
+    return ignoreCase;
+  }
+
+  @NotNull
+  public ToggleOption getSmartCaseOption() {
+    return smartCase;
+  }
+
+  @NotNull
+  public ToggleOption getWrapScanOption() {
+    return wrapScan;
+  }
+
+  @NotNull
+  public ToggleOption getDigraphOption() {
+    return digraph;
+  }
+
+  @NotNull
+  public ToggleOption getShowModeOption() {
+    return showMode;
+  }
+
+  @NotNull
+  public KeywordOption getIsKeywordOption() {
+    return isKeyword;
+  }
+
+  @NotNull
+  public NumberOption getUndoLevelsOption() {
+    return undoLevels;
+  }
+
+  @NotNull
+  public ToggleOption getHlSearchOption() {
+    return hlSearch;
+  }
+
+  @NotNull
+  public ToggleOption getJoinSpacesOption() {
+    return joinSpaces;
+  }
+
+  @NotNull
+  public ToggleOption getTimeoutOption() {
+    return timeout;
+  }
+
+  @NotNull
+  public NumberOption getTimeoutLenOption() {
+    return timeoutLen;
+  }
+
+  @NotNull
+  public ToggleOption getTtimeoutOption() {
+    return ttimeout;
+  }
+
+  @NotNull
+  public NumberOption getTtimeoutLenOption() {
+    return ttimeoutLen;
+  }
+
   /**
    * Gets all options
    *
@@ -151,6 +259,21 @@ public class Options {
    * @return True if no errors were found, false if there were any errors
    */
   public boolean parseOptionLine(@Nullable Editor editor, @NotNull String args, boolean failOnBad) {
+    return parseOptionLine(editor, args, failOnBad, false);
+  }
+
+  /**
+   * This parses a set of :set or :setlocal commands. For :setlocal the options that can have a local value are set
+   * only for the editor, {option}&amp; removes the editor's own value. The other options are set globally.
+   *
+   * @param editor    The editor the command was entered for, null if no editor - reading .ideavimrc
+   * @param args      The :set command arguments
+   * @param failOnBad True if processing should stop when a bad argument is found, false if a bad argument is simply
+   *                  skipped and processing continues.
+   * @param local     True for :setlocal
+   * @return True if no errors were found, false if there were any errors
+   */
+  public boolean parseOptionLine(@Nullable Editor editor, @NotNull String args, boolean failOnBad, boolean local) {
     // No arguments so we show changed values
     if (args.length() == 0) {
       showOptions(editor, changedOptions(), true);
@@ -249,7 +372,13 @@ public class Options {
         String option = token.substring(0, token.length() - 1);
         Option opt = getOption(option);
         if (opt != null) {
-          opt.resetDefault();
+          if (local && editor != null && opt instanceof NumberOption && ((NumberOption)opt).isLocal()) {
+            ((NumberOption)opt).resetLocal(editor);
+          }
+          else {
+            opt.resetDefault();
+            resetLocal(editor, opt);
+          }
         }
         else {
           error = Msg.unkopt;
@@ -293,8 +422,13 @@ public class Options {
             String value = token.substring(eq + 1);
             Option opt = getOption(option);
             if (opt != null) {
+              if (local && editor != null && opt instanceof NumberOption && ((NumberOption)opt).isLocal()) {
+                if (!((NumberOption)opt).setLocal(editor, op, value)) {
+                  error = Msg.e_invarg;
+                }
+              }
               // If not a boolean
-              if (opt instanceof TextOption) {
+              else if (opt instanceof TextOption) {
                 TextOption to = (TextOption)opt;
                 boolean res;
                 switch (op) {
@@ -313,6 +447,9 @@ public class Options {
                 if (!res) {
                   error = Msg.e_invarg;
                 }
+                else {
+                  resetLocal(editor, opt);
+                }
               }
               // boolean option - no good
               else {
@@ -347,6 +484,16 @@ public class Options {
     return error == null;
   }
 
+  /**
+   * Removes the editor's own value of a window-local option after :set, the same as :set in Vim sets both the global
+   * and the current window value
+   */
+  private static void resetLocal(@Nullable Editor editor, @NotNull Option opt) {
+    if (editor != null && opt instanceof NumberOption && ((NumberOption)opt).isLocal()) {
+      ((NumberOption)opt).resetLocal(editor);
+    }
+  }
+
   /**
    * Resets all options to their default value
    */
@@ -372,7 +519,7 @@ public class Options {
     ArrayList<Option> cols = new ArrayList<Option>();
     ArrayList<Option> extra = new ArrayList<Option>();
     for (Option option : opts) {
-      if (option.toString().length() > 19) {
+      if (option.toString(editor).length() > 19) {
         extra.add(option);
       }
       else {
@@ -415,7 +562,7 @@ public class Options {
         }
 
         Option opt = cols.get(pos);
-        String val = opt.toString();
+        String val = opt.toString(editor);
         res.append(val);
         res.append(pad.substring(0, 20 - val.length()));
       }
@@ -423,7 +570,7 @@ public class Options {
     }
 
     for (Option opt : extra) {
-      String val = opt.toString();
+      String val = opt.toString(editor);
       int seg = (val.length() - 1) / width;
       for (int j = 0; j <= seg; j++) {
         res.append(val.substring(j * width, Math.min(j * width + width, val.length())));
@@ -445,33 +592,36 @@ public class Options {
    * Creates all the supported options
    */
   private void createDefaultOptions() {
-    addOption(new ToggleOption("digraph", "dg", false));
+    addOption(digraph);
     addOption(new ToggleOption("gdefault", "gd", false));
     addOption(new NumberOption("history", "hi", 20, 1, Integer.MAX_VALUE));
-    addOption(new ToggleOption("hlsearch", "hls", false));
-    addOption(new ToggleOption("ignorecase", "ic", false));
+    addOption(hlSearch);
+    addOption(ignoreCase);
+    addOption(joinSpaces);
     addOption(new ListOption("matchpairs", "mps", new String[]{"(:)", "{:}", "[:]"}, ".:."));
     addOption(new ToggleOption("more", "more", true));
     addOption(new BoundListOption("nrformats", "nf", new String[]{"octal", "hex"}, new String[]{"octal", "hex", "alpha"}));
-    addOption(new NumberOption("scroll", "scr", 0));
-    addOption(new NumberOption("scrolljump", "sj", 1));
-    addOption(new NumberOption("scrolloff", "so", 0));
-    addOption(new BoundStringOption("selection", "sel", "inclusive", new String[]{"old", "inclusive", "exclusive"}));
-    addOption(new ToggleOption("showmode", "smd", false));
-    addOption(new NumberOption("sidescroll", "ss", 0));
-    addOption(new NumberOption("sidescrolloff", "siso", 0));
-    addOption(new ToggleOption("smartcase", "scs", false));
-    addOption(new NumberOption("timeoutlen", "tm", 1000, -1, Integer.MAX_VALUE));
-    addOption(new NumberOption("undolevels", "ul", 1000, -1, Integer.MAX_VALUE));
+    addOption(scroll);
+    addOption(scrollJump);
+    addOption(scrollOff);
+    addOption(selection);
+    addOption(showMode);
+    addOption(sideScroll);
+    addOption(sideScrollOff);
+    addOption(smartCase);
+    addOption(timeoutLen);
+    addOption(ttimeoutLen);
+    addOption(undoLevels);
     addOption(new ToggleOption("visualbell", "vb", false));
-    addOption(new ToggleOption("wrapscan", "ws", true));
+    addOption(wrapScan);
     addOption(new ToggleOption(NUMBER, "nu", false));
     addOption(new ToggleOption(RELATIVE_NUMBER, "rnu", false));
     addOption(new ListOption(CLIPBOARD, "cb", new String[]{"autoselect,exclude:cons\\|linux"}, null));
     addOption(new ToggleOption(INCREMENTAL_SEARCH, "is", false));
-    addOption(new ToggleOption(TIMEOUT, "to", true));
+    addOption(timeout);
+    addOption(ttimeout);
     addOption(new ListOption(VIMINFO, "vi", new String[]{"'100", "<50", "s10", "h"}, null));
-    addOption(new KeywordOption("iskeyword", "isk", new String[]{"@", "48-57", "_"}));
+    addOption(isKeyword);
 
     registerExtensionOptions();
   }
@@ -508,7 +658,29 @@ public class Options {
   @NotNull private final HashMap<String, Option> options = new LinkedHashMap<>();
   @NotNull private final HashMap<String, Option> abbrevs = new LinkedHashMap<>();
 
-  private static Options ourInstance;
+  @NotNull private final ToggleOption digraph = new ToggleOption("digraph", "dg", false);
+  @NotNull private final ToggleOption hlSearch = new ToggleOption("hlsearch", "hls", false);
+  @NotNull private final ToggleOption ignoreCase = new ToggleOption("ignorecase", "ic", false);
+  @NotNull private final ToggleOption joinSpaces = new ToggleOption("joinspaces", "js", false);
+  @NotNull private final NumberOption scroll = new NumberOption("scroll", "scr", 0, 0, Integer.MAX_VALUE, true);
+  @NotNull private final NumberOption scrollJump = new NumberOption("scrolljump", "sj", 1);
+  @NotNull private final NumberOption scrollOff = new NumberOption("scrolloff", "so", 0, 0, Integer.MAX_VALUE, true);
+  @NotNull private final BoundStringOption selection =
+    new BoundStringOption("selection", "sel", "inclusive", new String[]{"old", "inclusive", "exclusive"});
+  @NotNull private final ToggleOption showMode = new ToggleOption("showmode", "smd", false);
+  @NotNull private final NumberOption sideScroll = new NumberOption("sidescroll", "ss", 0);
+  @NotNull private final NumberOption sideScrollOff =
+    new NumberOption("sidescrolloff", "siso", 0, 0, Integer.MAX_VALUE, true);
+  @NotNull private final ToggleOption smartCase = new ToggleOption("smartcase", "scs", false);
+  @NotNull private final NumberOption timeoutLen = new NumberOption(TIMEOUT_LENGTH, "tm", 1000, -1, Integer.MAX_VALUE);
+  @NotNull private final NumberOption ttimeoutLen = new NumberOption(TTIMEOUT_LENGTH, "ttm", -1, -1, Integer.MAX_VALUE);
+  @NotNull private final ToggleOption wrapScan = new ToggleOption("wrapscan", "ws", true);
+  @NotNull private final ToggleOption timeout = new ToggleOption(TIMEOUT, "to", true);
+  @NotNull private final ToggleOption ttimeout = new ToggleOption(TTIMEOUT, TTIMEOUT, false);
+  @NotNull private final NumberOption undoLevels = new NumberOption("undolevels", "ul", 1000, -1, Integer.MAX_VALUE);
+  @NotNull private final KeywordOption isKeyword = new KeywordOption("iskeyword", "isk", new String[]{"@", "48-57", "_"});
+
+  private static volatile Options ourInstance;
 
   private static final Logger logger = Logger.getInstance(Options.class.getName());
 }
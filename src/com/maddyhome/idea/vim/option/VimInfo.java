@@ -0,0 +1,96 @@
+/*
+ * IdeaVim - Vim emulator for IDEs based on the IntelliJ platform
+ * Copyright (C) 2003-2016 The IdeaVim authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.maddyhome.idea.vim.option;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Reads the limits of the 'viminfo' option that apply to the saved plugin state.
+ *
+ * @see :help 'viminfo'
+ */
+public class VimInfo {
+  /**
+   * Maximum number of files for which the marks are saved
+   */
+  public static final char FILE_MARKS = '\'';
+  /**
+   * Maximum number of lines saved for each register
+   */
+  public static final char REGISTER_LINES = '<';
+  /**
+   * Maximum size of a saved register in Kbyte
+   */
+  public static final char REGISTER_SIZE = 's';
+  /**
+   * Maximum number of items of the command-line history to save
+   */
+  public static final char COMMAND_HISTORY = ':';
+  /**
+   * Maximum number of items of the search history to save
+   */
+  public static final char SEARCH_HISTORY = '/';
+
+  private VimInfo() {
+  }
+
+  /**
+   * Gets the numeric value of an item like "<50" or "s10"
+   *
+   * @param item  The name of the item
+   * @param dflt  The value if the item isn't set or its value isn't a number
+   * @return The item value
+   */
+  public static int getNumber(char item, int dflt) {
+    final ListOption option = getOption();
+    final List<String> values = option != null ? option.values() : null;
+    if (values == null) {
+      return dflt;
+    }
+    for (String value : values) {
+      if (value.length() > 1 && value.charAt(0) == item) {
+        try {
+          return Integer.parseInt(value.substring(1));
+        }
+        catch (NumberFormatException e) {
+          return dflt;
+        }
+      }
+    }
+    return dflt;
+  }
+
+  /**
+   * Registers a listener that is notified when any of the limits may have changed
+   */
+  public static void addChangeListener(@NotNull OptionChangeListener listener) {
+    final ListOption option = getOption();
+    if (option != null) {
+      option.addOptionChangeListener(listener);
+    }
+  }
+
+  @Nullable
+  private static ListOption getOption() {
+    return Options.getInstance().getListOption(Options.VIMINFO);
+  }
+}
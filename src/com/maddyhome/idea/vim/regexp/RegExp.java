@@ -22,16 +22,22 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.LogicalPosition;
 import com.maddyhome.idea.vim.VimPlugin;
+import com.maddyhome.idea.vim.helper.DocumentSnapshot;
 import com.maddyhome.idea.vim.helper.EditorHelper;
 import com.maddyhome.idea.vim.helper.MessageHelper;
 import com.maddyhome.idea.vim.helper.Msg;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Vim regular expression compiler and matcher.
+ * <p>
+ * A compiled {@link regprog_T} is immutable and can be shared between threads and between nested searches. An
+ * instance of this class holds the mutable compiler and matcher state, so it must be confined to a single thread and
+ * a single search at a time. Compile a pattern once with {@link #compile(String, int)} and create a new
+ * {@code RegExp} for every thread that matches it.
+ */
 public class RegExp {
-  @Nullable public static reg_extmatch_T re_extmatch_out = null;
-  @Nullable public static reg_extmatch_T re_extmatch_in = null;
-
   /*
      * The opcodes are:
      */
@@ -457,7 +463,7 @@ public class RegExp {
      */
   @Nullable
   public regprog_T vim_regcomp(@Nullable String expr, int magic) {
-    regprog_T r;
+    StringBuffer code;
     CharPointer scan;
     CharPointer longest;
     int len;
@@ -468,42 +474,39 @@ public class RegExp {
       return null;
     }
 
-    r = new regprog_T();
-    r.program = new StringBuffer();
+    code = new StringBuffer();
 
     /*
          * Second pass: emit code.
          */
     regcomp_start(expr, magic);
-    regcode = new CharPointer(r.program);
+    regcode = new CharPointer(code);
     regc(REGMAGIC);
     if (reg(REG_NOPAREN, flags) == null) {
       return null;
     }
 
     /* Dig out information for optimizations. */
-    r.regstart = 0;          /* Worst-case defaults. */
-    r.reganch = 0;
-    r.regmust = null;
-    r.regmlen = 0;
-    r.regflags = regflags;
+    char regstart = 0;          /* Worst-case defaults. */
+    char reganch = 0;
+    String regmust = null;
+    int regmlen = 0;
+    int progflags = regflags;
     if (flags.isSet(HASNL)) {
-      r.regflags |= RF_HASNL;
+      progflags |= RF_HASNL;
     }
-    /* Remember whether this pattern has any \z specials in it. */
-    r.reghasz = re_has_z;
-    scan = (new CharPointer(r.program)).ref(1);      /* First BRANCH. */
+    scan = (new CharPointer(code)).ref(1);      /* First BRANCH. */
     if (regnext(scan).OP() == END)   /* Only one top-level choice. */ {
       scan = scan.OPERAND();
 
       /* Starting-point info. */
       if (scan.OP() == BOL || scan.OP() == RE_BOF) {
-        r.reganch++;
+        reganch++;
         scan = regnext(scan);
       }
 
       if (scan.OP() == EXACTLY) {
-        r.regstart = scan.OPERAND().charAt();
+        regstart = scan.OPERAND().charAt();
       }
       else if ((scan.OP() == BOW
                 || scan.OP() == EOW
@@ -511,7 +514,7 @@ public class RegExp {
                 || scan.OP() == MOPEN || scan.OP() == NOPEN
                 || scan.OP() == MCLOSE || scan.OP() == NCLOSE)
                && regnext(scan).OP() == EXACTLY) {
-        r.regstart = regnext(scan).OPERAND().charAt();
+        regstart = regnext(scan).OPERAND().charAt();
       }
 
       /*
@@ -538,17 +541,30 @@ public class RegExp {
           }
         }
         if (longest != null) {
-          r.regmust = longest.ref(0);
+          regmust = longest.substring(len);
         }
-        r.regmlen = len;
+        regmlen = len;
       }
     }
 
+    /* Remember whether this pattern has any \z specials in it. */
+    final regprog_T r = new regprog_T(regstart, reganch, regmust, regmlen, progflags, re_has_z, code.toString());
+
     if (logger.isDebugEnabled()) logger.debug(regdump(expr, r));
 
     return r;
   }
 
+  /*
+     * Compile "expr" with a compiler of its own.  The returned program doesn't
+     * refer to any compiler or matcher state, so it can be matched by several
+     * RegExp instances at once.
+     */
+  @Nullable
+  public static regprog_T compile(@Nullable String expr, int magic) {
+    return new RegExp().vim_regcomp(expr, magic);
+  }
+
   /*
      * Setup to parse the regexp.  Used once to get the length and once to do it.
      */
@@ -2032,6 +2048,9 @@ public class RegExp {
     }
 
     //return ml_get_buf(reg_buf, reg_firstlnum + lnum, false);
+    if (reg_snapshot != null) {
+      return new CharPointer(reg_snapshot.getLineBuffer(reg_firstlnum + lnum));
+    }
     return new CharPointer(EditorHelper.getLineBuffer(reg_buf, reg_firstlnum + lnum));
   }
 
@@ -2072,6 +2091,8 @@ public class RegExp {
     reg_match = null;
     reg_mmatch = rmp;
     reg_buf = buf;
+    reg_snapshot = null;
+    reg_cursor = null;
     //reg_win = win;
     reg_firstlnum = lnum;
     reg_maxline = lcount - lnum;
@@ -2085,6 +2106,28 @@ public class RegExp {
     return r;
   }
 
+  /*
+     * Match a regexp against multiple lines of a document snapshot.  The
+     * editor isn't touched, so this can be called from any thread.  "cursor"
+     * is the cursor position for \%#, null if there is no cursor in the text.
+     *
+     * Return zero if there is no match.  Return number of lines contained in the
+     * match otherwise.
+     */
+  public int vim_regexec_multi(@NotNull regmmatch_T rmp, @NotNull DocumentSnapshot snapshot,
+                               @Nullable LogicalPosition cursor, int lcount, int lnum, int col) {
+    reg_match = null;
+    reg_mmatch = rmp;
+    reg_buf = null;
+    reg_snapshot = snapshot;
+    reg_cursor = cursor;
+    reg_firstlnum = lnum;
+    reg_maxline = lcount - lnum;
+    ireg_ic = rmp.rmm_ic;
+
+    return vim_regexec_both(null, col);
+  }
+
   /*
      * Match a regexp against a string ("line" points to the string) or multiple
      * lines ("line" is null, use reg_getline()).
@@ -2130,12 +2173,13 @@ public class RegExp {
 
     /* If there is a "must appear" string, look for it. */
     if (prog.regmust != null) {
+      final CharPointer must = new CharPointer(prog.regmust);
       char c;
 
-      c = prog.regmust.charAt();
+      c = must.charAt();
       s = line.ref(col);
       while ((s = cstrchr(s, c)) != null) {
-        if (cstrncmp(s, prog.regmust, prog.regmlen) == 0) {
+        if (cstrncmp(s, must, prog.regmlen) == 0) {
           break;          /* Found it. */
         }
         s.inc();
@@ -2368,8 +2412,8 @@ public class RegExp {
           case CURSOR:
             /* Check if the buffer is in a window and compare the
                          * reg_win->w_cursor position to the match position. */
-            LogicalPosition curpos = reg_buf.getCaretModel().getLogicalPosition();
-            if (reglnum + reg_firstlnum != curpos.line ||
+            LogicalPosition curpos = reg_buf != null ? reg_buf.getCaretModel().getLogicalPosition() : reg_cursor;
+            if (curpos == null || reglnum + reg_firstlnum != curpos.line ||
                 reginput.pointer() - regline.pointer() != curpos.column) {
               return false;
             }
@@ -3900,7 +3944,7 @@ public class RegExp {
     reg_mmatch = rmp;
     //reg_buf = curbuf;           /* always works on the current buffer! */
     reg_firstlnum = lnum;
-    reg_maxline = EditorHelper.getLineCount(reg_buf) - lnum;
+    reg_maxline = (reg_snapshot != null ? reg_snapshot.getLineCount() : EditorHelper.getLineCount(reg_buf)) - lnum;
 
     return vim_regsub_both(source, magic, backslash);
   }
@@ -4283,7 +4327,7 @@ public class RegExp {
       res.append("anchored: ");
     }
     if (r.regmust != null) {
-      res.append("must have \"").append(r.regmust.substring(r.regmust.strlen())).append("\"");
+      res.append("must have \"").append(r.regmust).append("\"");
     }
     res.append("\n");
 
@@ -4659,14 +4703,28 @@ public class RegExp {
     return buf.toString();
   }
 
+  /*
+    * A compiled program.  It is never modified after vim_regcomp() returns it.
+    */
   public static class regprog_T {
-    char regstart;
-    char reganch;
-    @Nullable CharPointer regmust;
-    int regmlen;
-    int regflags;
-    char reghasz;
-    StringBuffer program;
+    private regprog_T(char regstart, char reganch, @Nullable String regmust, int regmlen, int regflags, char reghasz,
+                      @NotNull String program) {
+      this.regstart = regstart;
+      this.reganch = reganch;
+      this.regmust = regmust;
+      this.regmlen = regmlen;
+      this.regflags = regflags;
+      this.reghasz = reghasz;
+      this.program = program;
+    }
+
+    final char regstart;
+    final char reganch;
+    @Nullable final String regmust;
+    final int regmlen;
+    final int regflags;
+    final char reghasz;
+    @NotNull final String program;
   }
 
   private static class MinMax {
@@ -4710,11 +4768,11 @@ public class RegExp {
     @NotNull lpos_T pos = new lpos_T();
   }
 
-  private static class regmatch_T {
-    regprog_T regprog;
-    @NotNull CharPointer[] startp = new CharPointer[NSUBEXP];
-    @NotNull CharPointer[] endp = new CharPointer[NSUBEXP];
-    boolean rm_ic;
+  public static class regmatch_T {
+    @Nullable public regprog_T regprog;
+    @NotNull public CharPointer[] startp = new CharPointer[NSUBEXP];
+    @NotNull public CharPointer[] endp = new CharPointer[NSUBEXP];
+    public boolean rm_ic;
   }
 
   public static class regmmatch_T {
@@ -4815,6 +4873,7 @@ public class RegExp {
     * reg_endpos           <invalid>               reg_mmatch->endpos
     * reg_win              null                    window in which to search
     * reg_buf              <invalid>               buffer in which to search
+    * reg_snapshot         <invalid>               snapshot in which to search
     * reg_firstlnum        <invalid>               first line in which to search
     * reg_maxline          0                       last line nr
     */
@@ -4825,7 +4884,9 @@ public class RegExp {
   @NotNull private lpos_T[] reg_startpos = new lpos_T[NSUBEXP];
   @NotNull private lpos_T[] reg_endpos = new lpos_T[NSUBEXP];
   //static win_T            *reg_win;
-  private Editor reg_buf;
+  @Nullable private Editor reg_buf;
+  @Nullable private DocumentSnapshot reg_snapshot;
+  @Nullable private LogicalPosition reg_cursor;
   private int reg_firstlnum;
   private int reg_maxline;
 
@@ -4838,6 +4899,10 @@ public class RegExp {
 
   private boolean got_int = false;
 
+  /* \z(...\) matches of the last match, and the ones used for \z1 - \z9 */
+  @Nullable private reg_extmatch_T re_extmatch_out = null;
+  @Nullable private reg_extmatch_T re_extmatch_in = null;
+
   /*
     * The arguments from BRACE_LIMITS are stored here.  They are actually local
     * to regmatch(), but they are here to reduce the amount of stack space used
@@ -64,13 +64,29 @@ public class ClipboardHandler {
    * @param text The text to add to the clipboard
    */
   public static void setClipboardText(String text) {
+    setClipboardText(text, null);
+  }
+
+  /**
+   * Puts the supplied text into the system clipboard. The text is given to other applications only when they paste it.
+   *
+   * @param text  The text to add to the clipboard
+   * @param owner The owner to notify when another application replaces the text
+   * @return true if the text has been put into the clipboard
+   */
+  public static boolean setClipboardText(String text, @Nullable ClipboardOwner owner) {
     try {
       Clipboard board = Toolkit.getDefaultToolkit().getSystemClipboard();
       StringSelection data = new StringSelection(text);
-      board.setContents(data, null);
+      board.setContents(data, owner);
+      return true;
     }
     catch (HeadlessException e) {
-      // ignore
+      return false;
+    }
+    catch (IllegalStateException e) {
+      // The clipboard is currently unavailable
+      return false;
     }
   }
 }
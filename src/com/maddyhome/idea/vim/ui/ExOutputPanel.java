@@ -37,10 +37,15 @@ import java.awt.event.ComponentEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * This panel displays text in a <code>more</code> like window.
+ * <p/>
+ * Only the visible page of lines is put into the text area. The lines are taken from their source as they are scrolled
+ * into view and dropped once they are scrolled past, so a long output costs no more than the part of it that is seen.
  */
 public class ExOutputPanel extends JPanel {
   @NotNull private final Editor myEditor;
@@ -48,11 +53,18 @@ public class ExOutputPanel extends JPanel {
   @NotNull private final JLabel myLabel = new JLabel("more");
   @NotNull private final JTextArea myText = new JTextArea();
   @NotNull private final JScrollPane myScrollPane =
-    new JBScrollPane(myText, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+    new JBScrollPane(myText, JScrollPane.VERTICAL_SCROLLBAR_NEVER, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
   @NotNull private final ComponentAdapter myAdapter;
   private boolean myAtEnd = false;
   private int myLineHeight = 0;
 
+  /**
+   * The lines taken from the source that haven't been scrolled past, the first one is at the top of the page
+   */
+  @NotNull private final List<String> myLines = new ArrayList<String>();
+  @Nullable private Iterator<String> myLineSource = null;
+  private int myPageSize = 0;
+
   @Nullable private JComponent myOldGlass = null;
   @Nullable private LayoutManager myOldLayout = null;
   private boolean myWasOpaque = false;
@@ -105,13 +117,19 @@ public class ExOutputPanel extends JPanel {
   }
 
   public void setText(@NotNull String data) {
-    if (data.length() > 0 && data.charAt(data.length() - 1) == '\n') {
-      data = data.substring(0, data.length() - 1);
-    }
+    setLines(new TextLines(data));
+  }
 
-    myText.setText(data);
-    myText.setCaretPosition(0);
-    if (data.length() > 0) {
+  /**
+   * Shows the lines of the source, they are taken from it only when they are about to be displayed
+   */
+  public void setLines(@NotNull Iterator<String> lines) {
+    myLines.clear();
+    myLineSource = lines;
+    fill(1);
+    myPageSize = myLines.size();
+    renderPage();
+    if (!myLines.isEmpty()) {
       activate();
     }
   }
@@ -123,6 +141,8 @@ public class ExOutputPanel extends JPanel {
     if (!myActive) return;
     myActive = false;
     myText.setText("");
+    myLines.clear();
+    myLineSource = null;
     if (refocusOwningEditor) {
       UiHelper.requestFocus(myEditor.getContentComponent());
     }
@@ -167,36 +187,62 @@ public class ExOutputPanel extends JPanel {
     myLabel.setFont(font);
   }
 
-  private static int countLines(@NotNull String text) {
-    if (text.length() == 0) {
-      return 0;
+  /**
+   * Takes lines from the source until there are at least count of them or the source is exhausted
+   */
+  private void fill(int count) {
+    final Iterator<String> source = myLineSource;
+    if (source == null) {
+      return;
     }
-
-    int count = 0;
-    int pos = -1;
-    while ((pos = text.indexOf('\n', pos + 1)) != -1) {
-      count++;
+    while (myLines.size() < count && source.hasNext()) {
+      myLines.add(source.next());
     }
+  }
 
-    if (text.charAt(text.length() - 1) != '\n') {
-      count++;
-    }
+  /**
+   * Moves the page count lines forward, it stops when the last line is at the bottom of the page
+   */
+  private void advance(int count) {
+    fill(count + myPageSize);
+    final int skipped = Math.min(count, Math.max(0, myLines.size() - myPageSize));
+    myLines.subList(0, skipped).clear();
+    fill(myPageSize + 1);
+    myAtEnd = myLines.size() <= myPageSize;
+  }
 
-    return count;
+  private void renderPage() {
+    final StringBuilder text = new StringBuilder();
+    final int count = Math.min(myPageSize, myLines.size());
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        text.append('\n');
+      }
+      text.append(myLines.get(i));
+    }
+    myText.setText(text.toString());
+    myText.setCaretPosition(0);
   }
 
   private void scrollLine() {
-    scrollOffset(myLineHeight);
+    scrollLines(1);
   }
 
   private void scrollPage() {
-    scrollOffset(myScrollPane.getVerticalScrollBar().getVisibleAmount());
+    scrollLines(myPageSize);
   }
 
   private void scrollHalfPage() {
-    double sa = myScrollPane.getVerticalScrollBar().getVisibleAmount() / 2.0;
-    double offset = Math.ceil(sa / myLineHeight) * myLineHeight;
-    scrollOffset((int)offset);
+    scrollLines((myPageSize + 1) / 2);
+  }
+
+  private void scrollToEnd() {
+    advance(0);
+    while (!myAtEnd) {
+      advance(myPageSize);
+    }
+    renderPage();
+    updateLabel();
   }
 
   private void handleEnter() {
@@ -212,14 +258,14 @@ public class ExOutputPanel extends JPanel {
     myLabel.setText("-- MORE -- (RET: line, SPACE: page, d: half page, q: quit)");
   }
 
-  private void scrollOffset(int more) {
-    myAtEnd = false;
-    int val = myScrollPane.getVerticalScrollBar().getValue();
-    myScrollPane.getVerticalScrollBar().setValue(val + more);
-    myScrollPane.getHorizontalScrollBar().setValue(0);
-    if (val + more >=
-        myScrollPane.getVerticalScrollBar().getMaximum() - myScrollPane.getVerticalScrollBar().getVisibleAmount()) {
-      myAtEnd = true;
+  private void scrollLines(int count) {
+    advance(count);
+    renderPage();
+    updateLabel();
+  }
+
+  private void updateLabel() {
+    if (myAtEnd) {
       myLabel.setText("Hit ENTER or type command to continue");
     }
     else {
@@ -233,9 +279,10 @@ public class ExOutputPanel extends JPanel {
     setSize(scroll.getSize());
 
     myLineHeight = myText.getFontMetrics(myText.getFont()).getHeight();
-    int count = countLines(myText.getText());
     int visLines = getSize().height / myLineHeight - 1;
-    int lines = Math.min(count, visLines);
+    fill(visLines);
+    int lines = Math.min(myLines.size(), visLines);
+    myPageSize = Math.max(lines, 1);
     setSize(getSize().width, lines * myLineHeight + myLabel.getPreferredSize().height +
                              getBorder().getBorderInsets(this).top * 2);
 
@@ -248,13 +295,11 @@ public class ExOutputPanel extends JPanel {
     bounds.setLocation(pos);
     setBounds(bounds);
 
-    myScrollPane.getVerticalScrollBar().setValue(0);
     if (!Options.getInstance().isSet("more")) {
-      // FIX
-      scrollOffset(100000);
+      scrollToEnd();
     }
     else {
-      scrollOffset(0);
+      scrollLines(0);
     }
   }
 
@@ -328,4 +373,40 @@ public class ExOutputPanel extends JPanel {
       }
     }
   }
+
+  /**
+   * Splits the text into lines as they are requested, a line break at the end of the text doesn't start a new line
+   */
+  private static class TextLines implements Iterator<String> {
+    @NotNull private final String myText;
+    private int myPos = 0;
+
+    public TextLines(@NotNull String text) {
+      myText = text;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return myPos < myText.length();
+    }
+
+    @Override
+    public String next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int end = myText.indexOf('\n', myPos);
+      if (end < 0) {
+        end = myText.length();
+      }
+      final String line = myText.substring(myPos, end);
+      myPos = end + 1;
+      return line;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
@@ -36,6 +36,26 @@ public class ChangeActionTest extends VimTestCase {
            "abcdx.\n");
   }
 
+  // |i_CTRL-K|
+  public void testInsertDigraph() {
+    doTest(parseKeys("i", "<C-K>a:", "<C-K>:o", "<Esc>"),
+           "<caret>.\n",
+           "\u00e4\u00f6.\n");
+  }
+
+  // |u| |CTRL-R| |count|
+  public void testUndoAndRedoWithCount() {
+    configureByText("<caret>abcdef\n");
+    for (int i = 0; i < 4; i++) {
+      typeText(parseKeys("x"));
+    }
+    myFixture.checkResult("ef\n");
+    typeText(parseKeys("3u"));
+    myFixture.checkResult("bcdef\n");
+    typeText(parseKeys("2<C-R>"));
+    myFixture.checkResult("def\n");
+  }
+
   // VIM-321 |d| |count|
   public void testDeleteEmptyRange() {
     doTest(parseKeys("d0"), "<caret>hello\n", "hello\n");
@@ -333,6 +353,17 @@ public class ChangeActionTest extends VimTestCase {
            "foo  bar");
   }
 
+  public void testDeleteJoinLinesWithJoinSpaces() {
+    doTest(parseKeys(":set joinspaces<Enter>", "3J"),
+           "<caret>one.\n" +
+           "  two\n" +
+           "three\n" +
+           "quux\n",
+           "one.  two three\n" +
+           "quux\n");
+    assertOffset(9);
+  }
+
   public void testDeleteJoinVisualLinesSpaces() {
     doTest(parseKeys("v2jJ"),
            "    a<caret> 1\n" +
@@ -497,6 +528,27 @@ public class ChangeActionTest extends VimTestCase {
            "bx<caret>yr\n");
   }
 
+  // |i|
+  public void testInsertWithCount() {
+    doTest(parseKeys("3i", "ab", "<Esc>"),
+           "x<caret>y\n",
+           "xababa<caret>by\n");
+  }
+
+  // |a|
+  public void testAppendWithCount() {
+    doTest(parseKeys("3a", "ab", "<Esc>"),
+           "<caret>xy\n",
+           "xababa<caret>by\n");
+  }
+
+  // |R|
+  public void testReplaceModeWithCount() {
+    doTest(parseKeys("3R", "xy", "<Esc>"),
+           "<caret>abcdefgh\n",
+           "xyxyx<caret>ygh\n");
+  }
+
   // |s|
   public void testReplaceMultipleCharsWithTextWithCount() {
     doTest(parseKeys("3sxy<Esc>"),
@@ -543,6 +595,15 @@ public class ChangeActionTest extends VimTestCase {
            "fo<caret>o quux\n");
   }
 
+  // |.|
+  public void testRepeatWithDeletes() {
+    doTest(parseKeys("i", "ab", "<Del><Del>", "<Esc>", "j0", "."),
+           "<caret>xxyy\n" +
+           "xxyy\n",
+           "abyy\n" +
+           "a<caret>byy\n");
+  }
+
   // VIM-511 |.|
   public void testRepeatWithParensAndQuotesAutoInsertion() {
     configureByJavaText("class C <caret>{\n" +
@@ -0,0 +1,67 @@
+package org.jetbrains.plugins.ideavim.benchmark;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.maddyhome.idea.vim.helper.StringHelper.parseKeys;
+import static com.maddyhome.idea.vim.helper.StringHelper.stringToKeys;
+
+/**
+ * Typical editing sessions replayed against large files
+ */
+public class KeySequenceBenchmarkTest extends VimBenchmarkCase {
+  private static final int WARMUP = 2;
+  private static final int ITERATIONS = 5;
+
+  public void testInsertTyping() {
+    final List<KeyStroke> keys = repeat(parseKeys("oThe quick brown fox jumps over the lazy dog.<Esc>"), 200);
+    benchmark("insert typing", generateText(10000), keys, WARMUP, ITERATIONS);
+  }
+
+  public void testPlainInsertTyping() {
+    final List<KeyStroke> keys = new ArrayList<KeyStroke>();
+    keys.addAll(parseKeys("i"));
+    keys.addAll(repeat(stringToKeys("the quick brown fox jumps over the lazy dog "), 100));
+    keys.addAll(parseKeys("<Esc>"));
+    benchmark("plain insert typing", generateText(10000), keys, WARMUP, ITERATIONS);
+  }
+
+  public void testSimpleMotions() {
+    final List<KeyStroke> keys = repeat(parseKeys("jjjlllkkkhhhwwbb"), 500);
+    benchmark("simple motions", generateText(10000), keys, WARMUP, ITERATIONS);
+  }
+
+  public void testDeleteAndPutLines() {
+    final List<KeyStroke> keys = repeat(parseKeys("ddpj"), 1000);
+    benchmark("dd/p loop", generateText(10000), keys, WARMUP, ITERATIONS);
+  }
+
+  public void testMacro() {
+    final List<KeyStroke> keys = parseKeys("qaA;<Esc>0wcwbar<Esc>jq", "1000@a");
+    benchmark("macro", generateText(10000), keys, WARMUP, ITERATIONS);
+  }
+
+  public void testSubstitute() {
+    final List<KeyStroke> keys = commandToKeys("%s/\\<foo\\>/quux/g");
+    benchmark(":s", generateText(100000), keys, WARMUP, ITERATIONS);
+  }
+
+  public void testVisualBlockInsert() {
+    final List<KeyStroke> keys = repeat(parseKeys("<C-V>50jI// <Esc>51j"), 100);
+    benchmark("visual block insert", generateText(10000), keys, WARMUP, ITERATIONS);
+  }
+
+  public void testMotions() {
+    final List<KeyStroke> keys = repeat(parseKeys("10w}3)10j$b{gg"), 200);
+    benchmark("motions", generateText(10000), keys, WARMUP, ITERATIONS);
+  }
+
+  private static List<KeyStroke> repeat(List<KeyStroke> keys, int count) {
+    final List<KeyStroke> res = new ArrayList<KeyStroke>(keys.size() * count);
+    for (int i = 0; i < count; i++) {
+      res.addAll(keys);
+    }
+    return res;
+  }
+}
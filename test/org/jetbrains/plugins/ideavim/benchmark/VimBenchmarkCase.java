@@ -0,0 +1,207 @@
+package org.jetbrains.plugins.ideavim.benchmark;
+
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.maddyhome.idea.vim.KeyHandler;
+import com.maddyhome.idea.vim.helper.EditorDataContext;
+import com.maddyhome.idea.vim.helper.RunnableHelper;
+import com.maddyhome.idea.vim.helper.TestInputModel;
+import com.maddyhome.idea.vim.ui.ExEntryPanel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.plugins.ideavim.VimTestCase;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays key sequences against large files in the light test fixture and reports keys per second, allocated bytes
+ * per key and per-key latency percentiles.
+ * <p/>
+ * Benchmarks are excluded from the test task, run them with `./gradlew benchmark`. If the "ideavim.benchmark.output"
+ * system property is set the results are also appended as tab-separated lines to that file, so that the numbers of
+ * different releases can be compared.
+ */
+public abstract class VimBenchmarkCase extends VimTestCase {
+  private static final String OUTPUT_PROPERTY = "ideavim.benchmark.output";
+  private static final String[] WORDS = {
+    "foo", "bar", "baz", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "testing", "(", ")", "42"
+  };
+
+  /**
+   * Runs the key sequence on a fresh copy of the text a few times to warm up and then measures it
+   *
+   * @param name       The name of the benchmark in the report
+   * @param text       The file contents each iteration starts with
+   * @param keys       The keys to replay
+   * @param warmup     The number of iterations that are not measured
+   * @param iterations The number of measured iterations
+   * @return The measured results
+   */
+  @NotNull
+  protected Result benchmark(@NotNull String name, @NotNull String text, @NotNull List<KeyStroke> keys, int warmup,
+                             int iterations) {
+    for (int i = 0; i < warmup; i++) {
+      replay(text, keys, null, 0);
+    }
+    final long[] latencies = new long[keys.size() * iterations];
+    long allocated = 0;
+    long total = 0;
+    int measured = 0;
+    for (int i = 0; i < iterations; i++) {
+      final long[] iteration = replay(text, keys, latencies, measured);
+      total += iteration[0];
+      allocated += iteration[1];
+      measured += (int)iteration[2];
+    }
+    final Result result = new Result(name, Arrays.copyOf(latencies, measured), total, allocated);
+    report(result);
+    return result;
+  }
+
+  /**
+   * Generates text of the given number of lines with words, numbers, brackets and empty lines between paragraphs
+   */
+  @NotNull
+  protected static String generateText(int lines) {
+    final Random random = new Random(lines);
+    final StringBuilder res = new StringBuilder(lines * 50);
+    for (int i = 0; i < lines; i++) {
+      if (random.nextInt(8) != 0) {
+        final int words = 2 + random.nextInt(10);
+        for (int j = 0; j < words; j++) {
+          if (j > 0) {
+            res.append(' ');
+          }
+          res.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+      }
+      res.append('\n');
+    }
+    return res.toString();
+  }
+
+  /**
+   * Keys consumed by the handlers themselves, e.g. by an extension waiting for input, are not measured separately.
+   *
+   * @return The elapsed nanoseconds, the allocated bytes and the number of the handled keys
+   */
+  @NotNull
+  private long[] replay(@NotNull String text, @NotNull List<KeyStroke> keys, @Nullable final long[] latencies,
+                        final int latencyOffset) {
+    final Editor editor = configureByText(text);
+    final KeyHandler keyHandler = KeyHandler.getInstance();
+    keyHandler.fullReset(editor);
+    final EditorDataContext dataContext = new EditorDataContext(editor);
+    final Project project = myFixture.getProject();
+    final long[] res = new long[3];
+    TestInputModel.getInstance(editor).setKeyStrokes(keys);
+    RunnableHelper.runWriteCommand(project, new Runnable() {
+      @Override
+      public void run() {
+        final TestInputModel inputModel = TestInputModel.getInstance(editor);
+        final long allocatedStart = getAllocatedBytes();
+        final long start = System.nanoTime();
+        int count = 0;
+        for (KeyStroke key = inputModel.nextKeyStroke(); key != null; key = inputModel.nextKeyStroke()) {
+          final long keyStart = System.nanoTime();
+          final ExEntryPanel exEntryPanel = ExEntryPanel.getInstance();
+          if (exEntryPanel.isActive()) {
+            exEntryPanel.handleKey(key);
+          }
+          else {
+            keyHandler.handleKey(editor, key, dataContext);
+          }
+          if (latencies != null) {
+            latencies[latencyOffset + count] = System.nanoTime() - keyStart;
+          }
+          count++;
+        }
+        res[0] = System.nanoTime() - start;
+        res[1] = getAllocatedBytes() - allocatedStart;
+        res[2] = count;
+      }
+    }, null, null);
+    return res;
+  }
+
+  private static long getAllocatedBytes() {
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  private static void report(@NotNull Result result) {
+    System.out.println(result);
+    final String output = System.getProperty(OUTPUT_PROPERTY);
+    if (output == null || output.isEmpty()) {
+      return;
+    }
+    try {
+      final Writer writer = new FileWriter(new File(output), true);
+      try {
+        writer.write(result.toTabSeparated());
+        writer.write('\n');
+      }
+      finally {
+        writer.close();
+      }
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public static class Result {
+    @NotNull private final String name;
+    @NotNull private final long[] latencies;
+    private final long totalNanos;
+    private final long allocatedBytes;
+
+    private Result(@NotNull String name, @NotNull long[] latencies, long totalNanos, long allocatedBytes) {
+      this.name = name;
+      this.latencies = latencies;
+      Arrays.sort(this.latencies);
+      this.totalNanos = totalNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    public double getKeysPerSecond() {
+      return totalNanos > 0 ? latencies.length * 1e9 / totalNanos : 0;
+    }
+
+    public long getAllocatedBytesPerKey() {
+      return latencies.length > 0 ? allocatedBytes / latencies.length : 0;
+    }
+
+    public long getPercentileNanos(int percent) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      final int index = (int)Math.ceil(latencies.length * percent / 100.0) - 1;
+      return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+    }
+
+    @NotNull
+    public String toTabSeparated() {
+      return String.format("%s\t%.1f\t%d\t%d\t%d\t%d", name, getKeysPerSecond(), getAllocatedBytesPerKey(),
+                           getPercentileNanos(50), getPercentileNanos(99), getPercentileNanos(100));
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%-24s %10.1f keys/s %10d B/key  p50 %8.3f ms  p99 %8.3f ms", name, getKeysPerSecond(),
+                           getAllocatedBytesPerKey(), getPercentileNanos(50) / 1e6, getPercentileNanos(99) / 1e6);
+    }
+  }
+}
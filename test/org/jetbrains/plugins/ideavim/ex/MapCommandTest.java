@@ -1,5 +1,6 @@
 package org.jetbrains.plugins.ideavim.ex;
 
+import com.maddyhome.idea.vim.KeyHandler;
 import com.maddyhome.idea.vim.command.CommandState;
 import com.maddyhome.idea.vim.ex.vimscript.VimScriptParser;
 import org.jetbrains.plugins.ideavim.VimTestCase;
@@ -288,6 +289,25 @@ public class MapCommandTest extends VimTestCase {
     myFixture.checkResult("Hello\n");
   }
 
+  public void testAmbiguousMappingWithLongerPendingKeys() {
+    configureByText("\n");
+    typeText(commandToKeys("nmap ,f iHello<Esc>"));
+    typeText(commandToKeys("nmap ,foo iBye<Esc>"));
+    typeText(parseKeys(",fox"));
+    myFixture.checkResult("Hello\nx\n");
+    assertMode(CommandState.Mode.INSERT);
+  }
+
+  public void testTimeoutRunsCompleteMapping() {
+    configureByText("\n");
+    typeText(commandToKeys("nmap ,f iHello<Esc>"));
+    typeText(commandToKeys("nmap ,f2 iBye<Esc>"));
+    typeText(parseKeys(",f"));
+    myFixture.checkResult("\n");
+    KeyHandler.getInstance().handlePendingMappingTimeout(myFixture.getEditor());
+    myFixture.checkResult("Hello\n");
+  }
+
   public void testPlugMapping() {
     configureByText("\n");
     typeText(commandToKeys("nmap ,f <Plug>Foo"));
@@ -0,0 +1,80 @@
+package org.jetbrains.plugins.ideavim.ex;
+
+import com.maddyhome.idea.vim.VimPlugin;
+import com.maddyhome.idea.vim.common.QuickFixList;
+import com.maddyhome.idea.vim.ex.ExOutputModel;
+import org.jetbrains.plugins.ideavim.VimTestCase;
+
+public class QuickFixCommandsTest extends VimTestCase {
+  // |:vimgrep|
+  public void testVimGrepCurrentFile() {
+    myFixture.configureByText("a.txt", "<caret>foo\n" +
+                                       "bar foo foo\n" +
+                                       "baz\n");
+    typeText(commandToKeys("vimgrep /foo/gj %"));
+    final QuickFixList list = VimPlugin.getQuickFix().getList();
+    assertNotNull(list);
+    assertEquals(3, list.size());
+    assertEquals(1, list.get(2).getLine());
+    assertEquals(8, list.get(2).getCol());
+    assertEquals("bar foo foo", list.get(2).getText());
+    assertOffset(0);
+  }
+
+  // |:vimgrep|
+  public void testVimGrepJumpsToFirstMatch() {
+    myFixture.configureByText("a.txt", "<caret>one\n" +
+                                       "two foo foo\n");
+    typeText(commandToKeys("vimgrep foo %"));
+    final QuickFixList list = VimPlugin.getQuickFix().getList();
+    assertNotNull(list);
+    assertEquals(1, list.size());
+    assertOffset(8);
+  }
+
+  // |:cnext| |:cprevious|
+  public void testNextAndPreviousEntry() {
+    myFixture.configureByText("a.txt", "<caret>foo\n" +
+                                       "bar foo\n" +
+                                       "  foo baz\n");
+    typeText(commandToKeys("vimgrep foo %"));
+    assertOffset(0);
+    typeText(commandToKeys("cnext"));
+    assertOffset(8);
+    typeText(commandToKeys("cn"));
+    assertOffset(14);
+    typeText(commandToKeys("cn"));
+    assertOffset(14);
+    typeText(commandToKeys("2cp"));
+    assertOffset(0);
+    typeText(commandToKeys("cN"));
+    assertOffset(0);
+  }
+
+  // |:cc|
+  public void testSelectEntry() {
+    myFixture.configureByText("a.txt", "<caret>foo\n" +
+                                       "bar foo\n" +
+                                       "  foo baz\n");
+    typeText(commandToKeys("vimgrep foo %"));
+    typeText(commandToKeys("cc 3"));
+    assertOffset(14);
+    typeText(commandToKeys("cc 1"));
+    assertOffset(0);
+  }
+
+  // |:copen|
+  public void testShowEntries() {
+    myFixture.configureByText("a.txt", "<caret>foo\n" +
+                                       "bar foo\n" +
+                                       "  foo baz\n");
+    typeText(commandToKeys("vimgrep foo %"));
+    typeText(commandToKeys("cn"));
+    typeText(commandToKeys("copen 2"));
+    final String text = ExOutputModel.getInstance(myFixture.getEditor()).getText();
+    assertNotNull(text);
+    assertTrue(text.contains("> 2 "));
+    assertTrue(text.contains(":2 col 5: bar foo"));
+    assertFalse(text.contains("foo baz"));
+  }
+}
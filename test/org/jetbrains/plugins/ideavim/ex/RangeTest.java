@@ -2,6 +2,8 @@ package org.jetbrains.plugins.ideavim.ex;
 
 import org.jetbrains.plugins.ideavim.VimTestCase;
 
+import static com.maddyhome.idea.vim.helper.StringHelper.parseKeys;
+
 /**
  * @author Tuomas Tynkkynen
  */
@@ -119,4 +121,18 @@ public class RangeTest extends VimTestCase {
     typeText(commandToKeys("/bar//foo/d"));
     myFixture.checkResult("a\nfoo\nbar\nbar\nbaz\n");
   }
+
+  public void testRepeatedCurrentLine() {
+    myFixture.configureByText("a.txt", "1\n2\n<caret>3\n4\n5\n");
+    typeText(commandToKeys(".d"));
+    typeText(commandToKeys(".d"));
+    myFixture.checkResult("1\n2\n5\n");
+  }
+
+  public void testRepeatLastCommandWithLastLine() {
+    myFixture.configureByText("a.txt", "1\n2\n3\n4\n5\n");
+    typeText(commandToKeys("$d"));
+    typeText(parseKeys("@:"));
+    myFixture.checkResult("1\n2\n3\n");
+  }
 }
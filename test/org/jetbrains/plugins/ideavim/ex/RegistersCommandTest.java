@@ -0,0 +1,24 @@
+package org.jetbrains.plugins.ideavim.ex;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.maddyhome.idea.vim.ex.ExOutputModel;
+import org.jetbrains.plugins.ideavim.VimTestCase;
+
+import static com.maddyhome.idea.vim.helper.StringHelper.parseKeys;
+
+public class RegistersCommandTest extends VimTestCase {
+  // |:registers|
+  public void testLongRegisterIsTruncated() {
+    final String line = StringUtil.repeat("abcde", 200);
+    configureByText("<caret>" + line + "\n");
+    typeText(parseKeys("\"ayy"));
+    typeText(commandToKeys("registers"));
+    final String text = ExOutputModel.getInstance(myFixture.getEditor()).getText();
+    assertNotNull(text);
+    assertTrue(text.startsWith("--- Registers ---\n"));
+    final int start = text.indexOf("\"a   abcde");
+    assertTrue(start >= 0);
+    final int end = text.indexOf('\n', start);
+    assertTrue(end - start < line.length());
+  }
+}
@@ -104,6 +104,14 @@ public class SubstituteCommandTest extends VimTestCase {
            "aaa\nbbb\nbbb\nbbb\naaa\n");
   }
 
+  public void testCountMatchesDoesntSubstitute() {
+    doTest("%s/a/b/gn",
+           "a<caret>baba\n" +
+           "ab\n",
+           "ababa\n" +
+           "ab\n");
+  }
+
   private void doTest(final String command, String before, String after) {
     myFixture.configureByText("a.java", before);
     typeText(commandToKeys(command));
@@ -1,6 +1,9 @@
 package org.jetbrains.plugins.ideavim.ex;
 
 import com.maddyhome.idea.vim.command.CommandState;
+import com.maddyhome.idea.vim.ex.ExOutputModel;
+import com.maddyhome.idea.vim.helper.Profiler;
+import com.maddyhome.idea.vim.option.Options;
 import org.jetbrains.plugins.ideavim.VimTestCase;
 
 import static com.maddyhome.idea.vim.helper.StringHelper.parseKeys;
@@ -94,4 +97,52 @@ public class VariousCommandsTest extends VimTestCase {
                           "a/*bc*/de\n" +
                           "-----");
   }
+
+  // |:setlocal|
+  public void testSetLocalKeepsGlobalValue() {
+    configureByText("<caret>foo\n");
+    typeText(commandToKeys("setlocal so=5"));
+    assertEquals(5, Options.getInstance().getScrollOffOption().value(myFixture.getEditor()));
+    assertEquals(0, Options.getInstance().getScrollOffOption().value());
+    typeText(commandToKeys("setlocal so&"));
+    assertEquals(0, Options.getInstance().getScrollOffOption().value(myFixture.getEditor()));
+    typeText(commandToKeys("setlocal so=5"));
+    typeText(commandToKeys("set so=3"));
+    assertEquals(3, Options.getInstance().getScrollOffOption().value(myFixture.getEditor()));
+    assertEquals(3, Options.getInstance().getScrollOffOption().value());
+  }
+
+  // |:earlier| |:later|
+  public void testEarlierAndLater() {
+    configureByText("<caret>abcdef\n");
+    for (int i = 0; i < 3; i++) {
+      typeText(parseKeys("x"));
+    }
+    typeText(commandToKeys("earlier 2"));
+    myFixture.checkResult("bcdef\n");
+    typeText(commandToKeys("later 1"));
+    myFixture.checkResult("cdef\n");
+  }
+
+  // |:profile|
+  public void testProfileReportsExCommands() {
+    configureByText("<caret>foo\n");
+    try {
+      typeText(commandToKeys("profile start"));
+      assertTrue(Profiler.isEnabled());
+      typeText(commandToKeys("set so=0"));
+      typeText(commandToKeys("profile"));
+      final String text = ExOutputModel.getInstance(myFixture.getEditor()).getText();
+      assertNotNull(text);
+      assertTrue(text.startsWith("Profiling is on\n"));
+      assertTrue(text.contains("\nex\n"));
+      assertTrue(text.contains("  set\n"));
+      typeText(commandToKeys("profile stop"));
+      assertFalse(Profiler.isEnabled());
+    }
+    finally {
+      Profiler.setEnabled(false);
+      Profiler.clear();
+    }
+  }
 }
@@ -0,0 +1,90 @@
+package org.jetbrains.plugins.ideavim.group;
+
+import com.intellij.openapi.editor.Editor;
+import com.maddyhome.idea.vim.command.SelectionType;
+import com.maddyhome.idea.vim.common.Register;
+import com.maddyhome.idea.vim.common.TextRange;
+import com.maddyhome.idea.vim.group.RegisterGroup;
+import com.maddyhome.idea.vim.option.ListOption;
+import com.maddyhome.idea.vim.option.Options;
+import org.jdom.Element;
+import org.jetbrains.plugins.ideavim.VimTestCase;
+
+import javax.swing.*;
+import java.util.List;
+
+import static com.maddyhome.idea.vim.helper.StringHelper.parseKeys;
+
+public class RegisterGroupTest extends VimTestCase {
+  public void testSaveAndReadKeys() {
+    final List<KeyStroke> keys = parseKeys("ihello\\\\<Esc><C-W>l<Down>");
+    final RegisterGroup group = new RegisterGroup();
+    group.setKeys('a', keys);
+    final Register register = saveAndRead(group).getRegister('a');
+    assertNotNull(register);
+    assertEquals(keys, register.getKeys());
+  }
+
+  public void testSavedRegisterLinesLimit() {
+    setVimInfo("<2");
+    final RegisterGroup group = new RegisterGroup();
+    group.storeTextInternal(configureByText(""), new TextRange(-1, -1), "one\ntwo\nthree\n", SelectionType.LINE_WISE,
+                            'a', false);
+    final Register register = saveAndRead(group).getRegister('a');
+    assertNotNull(register);
+    assertEquals("one\ntwo\n", register.getText());
+  }
+
+  public void testSavedRegisterSizeLimit() {
+    setVimInfo("s1");
+    final RegisterGroup group = new RegisterGroup();
+    final StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      text.append('x');
+    }
+    group.storeTextInternal(configureByText(""), new TextRange(-1, -1), text.toString(), SelectionType.CHARACTER_WISE,
+                            'a', false);
+    group.storeTextInternal(configureByText(""), new TextRange(-1, -1), "small", SelectionType.CHARACTER_WISE,
+                            'b', false);
+    final RegisterGroup restored = saveAndRead(group);
+    assertNull(restored.getRegister('a'));
+    assertNotNull(restored.getRegister('b'));
+  }
+
+  public void testSavedStateUpdatedAfterChange() {
+    final RegisterGroup group = new RegisterGroup();
+    group.setKeys('a', parseKeys("foo"));
+    saveAndRead(group);
+    group.setKeys('a', parseKeys("bar"));
+    final Register register = saveAndRead(group).getRegister('a');
+    assertNotNull(register);
+    assertEquals("bar", register.getText());
+  }
+
+  public void testAppendDoesNotChangeSharedText() {
+    final RegisterGroup group = new RegisterGroup();
+    final Editor editor = configureByText("");
+    group.storeTextInternal(editor, new TextRange(-1, -1), "one\n", SelectionType.LINE_WISE, 'a', true);
+    group.storeTextInternal(editor, new TextRange(-1, -1), "two\n", SelectionType.LINE_WISE, 'A', false);
+    final Register named = group.getRegister('a');
+    final Register numbered = group.getRegister('1');
+    assertNotNull(named);
+    assertNotNull(numbered);
+    assertEquals("one\ntwo\n", named.getText());
+    assertEquals("one\n", numbered.getText());
+  }
+
+  private static RegisterGroup saveAndRead(RegisterGroup group) {
+    final Element element = new Element("ideavim");
+    group.saveData(element);
+    final RegisterGroup restored = new RegisterGroup();
+    restored.readData(element);
+    return restored;
+  }
+
+  private static void setVimInfo(String value) {
+    final ListOption option = Options.getInstance().getListOption(Options.VIMINFO);
+    assertNotNull(option);
+    option.set(value);
+  }
+}
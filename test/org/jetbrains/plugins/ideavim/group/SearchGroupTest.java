@@ -10,6 +10,8 @@ import com.maddyhome.idea.vim.helper.RunnableHelper;
 import com.maddyhome.idea.vim.option.Option;
 import com.maddyhome.idea.vim.option.Options;
 import com.maddyhome.idea.vim.option.ToggleOption;
+import com.maddyhome.idea.vim.regexp.CharPointer;
+import com.maddyhome.idea.vim.regexp.RegExp;
 import org.jetbrains.plugins.ideavim.VimTestCase;
 
 import static com.maddyhome.idea.vim.helper.StringHelper.parseKeys;
@@ -108,6 +110,21 @@ public class SearchGroupTest extends VimTestCase {
                    "<caret>Hello, Österreich!\n");
     assertOffset(7);
   }
+
+  public void testCompiledProgramSharedByNestedMatchers() {
+    final RegExp.regprog_T prog = RegExp.compile("\\(\\a\\+\\)\\d", 1);
+    assertNotNull(prog);
+    final RegExp outer = new RegExp();
+    final RegExp.regmatch_T outerMatch = new RegExp.regmatch_T();
+    outerMatch.regprog = prog;
+    assertTrue(outer.vim_regexec(outerMatch, new CharPointer("foo1 bar2"), 0));
+    final RegExp inner = new RegExp();
+    final RegExp.regmatch_T innerMatch = new RegExp.regmatch_T();
+    innerMatch.regprog = prog;
+    assertTrue(inner.vim_regexec(innerMatch, new CharPointer("baz3"), 0));
+    assertEquals("foo", outer.vim_regsub(outerMatch, new CharPointer("\\1"), 1, false));
+    assertEquals("baz", inner.vim_regsub(innerMatch, new CharPointer("\\1"), 1, false));
+  }
   
   private void setHighlightSearch() {
     final Options options = Options.getInstance();
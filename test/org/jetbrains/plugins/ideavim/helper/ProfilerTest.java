@@ -0,0 +1,48 @@
+package org.jetbrains.plugins.ideavim.helper;
+
+import com.maddyhome.idea.vim.helper.Profiler;
+import org.jetbrains.plugins.ideavim.VimTestCase;
+
+public class ProfilerTest extends VimTestCase {
+  @Override
+  protected void tearDown() throws Exception {
+    Profiler.setEnabled(false);
+    Profiler.clear();
+    super.tearDown();
+  }
+
+  public void testBucketBoundaries() {
+    assertEquals(0, Profiler.getBucket(0));
+    assertEquals(0, Profiler.getBucket(999));
+    assertEquals(1, Profiler.getBucket(1000));
+    assertEquals(1, Profiler.getBucket(1999));
+    assertEquals(2, Profiler.getBucket(2000));
+    assertEquals(2, Profiler.getBucket(3999));
+    assertEquals(3, Profiler.getBucket(4000));
+    assertEquals(31, Profiler.getBucket(Long.MAX_VALUE));
+    assertEquals(1000, Profiler.getBucketLimit(0));
+    assertEquals(4000, Profiler.getBucketLimit(2));
+    for (int bucket = 1; bucket < 31; bucket++) {
+      assertEquals(bucket, Profiler.getBucket(Profiler.getBucketLimit(bucket) - 1));
+      assertEquals(bucket + 1, Profiler.getBucket(Profiler.getBucketLimit(bucket)));
+    }
+  }
+
+  public void testDisabledProfilerRecordsNothing() {
+    Profiler.setEnabled(false);
+    assertEquals(0, Profiler.start());
+    Profiler.stop(Profiler.EX, "set", 1);
+    assertEquals("Profiling is off\n", Profiler.report());
+  }
+
+  public void testStopRecordsEvent() {
+    Profiler.setEnabled(true);
+    final long start = Profiler.start();
+    assertTrue(start != 0);
+    Profiler.stop(Profiler.SEARCH, "findAll", start);
+    final String report = Profiler.report();
+    assertTrue(report.startsWith("Profiling is on\n\nsearch\n"));
+    assertTrue(report.contains("       1 "));
+    assertTrue(report.endsWith("  findAll\n"));
+  }
+}
@@ -1,8 +1,17 @@
 package org.jetbrains.plugins.ideavim.helper;
 
-import com.maddyhome.idea.vim.helper.SearchHelper;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.LogicalPosition;
+import com.maddyhome.idea.vim.common.TextRange;
+import com.maddyhome.idea.vim.helper.*;
+import com.maddyhome.idea.vim.regexp.RegExp;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.plugins.ideavim.VimTestCase;
 
+import java.util.List;
+
 public class SearchHelperTest extends VimTestCase {
   public void testFindNextWord() {
     String text = "first second";
@@ -52,4 +61,121 @@ public class SearchHelperTest extends VimTestCase {
 
     assertEquals(previousWordPosition, text.indexOf("second"));
   }
+
+  public void testFindNextParagraph() {
+    String text = "one\ntwo\n\nthree\n\nfour\n";
+    int nextParagraphPosition = SearchHelper.findNextParagraph(createDocument(text), 0, 1, false);
+
+    assertEquals(nextParagraphPosition, text.indexOf("\n\n") + 1);
+  }
+
+  public void testFindSecondPreviousParagraph() {
+    String text = "one\n\ntwo\n\nthree\n";
+    int previousParagraphPosition = SearchHelper.findNextParagraph(createDocument(text), text.indexOf("three"), -2, false);
+
+    assertEquals(previousParagraphPosition, text.indexOf("\n\n") + 1);
+  }
+
+  public void testFindAfterLastParagraph() {
+    String text = "one\n\ntwo\nthree\n";
+    int nextParagraphPosition = SearchHelper.findNextParagraph(createDocument(text), text.indexOf("two"), 1, false);
+
+    assertEquals(nextParagraphPosition, text.indexOf("three"));
+  }
+
+  public void testFindNextSentenceStart() {
+    String text = "One sentence. Another one.\n";
+    int nextSentencePosition = SearchHelper.findNextSentenceStart(createDocument(text), 0, 1, false, true);
+
+    assertEquals(nextSentencePosition, text.indexOf("Another"));
+  }
+
+  public void testBlankLineIndexAfterChanges() {
+    final Document document = createDocument("one\n\ntwo\n \nthree\n");
+    final BlankLineIndex index = BlankLineIndex.getInstance(document);
+    assertTrue(index.isLineEmpty(1, false));
+    assertFalse(index.isLineEmpty(3, false));
+    assertTrue(index.isLineEmpty(3, true));
+
+    WriteCommandAction.runWriteCommandAction(myFixture.getProject(), new Runnable() {
+      @Override
+      public void run() {
+        document.insertString(0, "zero\n\n\n");
+        document.deleteString(document.getText().indexOf(" "), document.getText().indexOf(" ") + 1);
+      }
+    });
+
+    assertTrue(index.isLineEmpty(2, false));
+    assertFalse(index.isLineEmpty(3, true));
+    assertTrue(index.isLineEmpty(6, false));
+    assertEquals(4, index.findLine(3, 1, true, false));
+    assertEquals(5, index.findLine(6, -1, false, false));
+    assertEquals(-1, index.findLine(7, 1, true, true));
+
+    BlankLineIndex.release(document);
+    final BlankLineIndex rebuilt = BlankLineIndex.getInstance(document);
+    assertNotSame(index, rebuilt);
+    assertTrue(rebuilt.isLineEmpty(6, false));
+  }
+
+  public void testSentenceBoundaryIndexAfterChanges() {
+    final Document document = createDocument("One. Two!\nthree\n\nfour?\n");
+    final SentenceBoundaryIndex index = SentenceBoundaryIndex.getInstance(document);
+    assertEquals(3, index.find(0, 1));
+    assertEquals(8, index.find(4, 1));
+    assertEquals(15, index.find(9, 1));
+    assertEquals(8, index.find(14, -1));
+
+    WriteCommandAction.runWriteCommandAction(myFixture.getProject(), new Runnable() {
+      @Override
+      public void run() {
+        document.deleteString(8, 9);
+        document.insertString(0, "Zero? ");
+      }
+    });
+
+    assertEquals(4, index.find(0, 1));
+    assertEquals(9, index.find(5, 1));
+    assertEquals(20, index.find(10, 1));
+    assertEquals(-1, index.find(3, -1));
+  }
+
+  public void testMatchFinderWithMatchesAcrossChunks() {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      builder.append(i % 3 == 0 ? "a\n" : "b\n");
+    }
+    final String text = builder.toString();
+    final RegExp.regprog_T prog = RegExp.compile("a\\nb", 1);
+    assertNotNull(prog);
+    final MatchFinder finder = new MatchFinder(DocumentSnapshot.create(createDocument(text)), prog, false,
+                                               new LogicalPosition(0, 0), null);
+    final List<TextRange> results = finder.findAll(0, 20000);
+
+    int expected = 0;
+    for (int offset = text.indexOf("a\nb"); offset >= 0; offset = text.indexOf("a\nb", offset + 1)) {
+      final TextRange range = results.get(expected++);
+      assertEquals(offset, range.getStartOffset());
+      assertEquals(offset + 3, range.getEndOffset());
+    }
+    assertEquals(expected, results.size());
+  }
+
+  public void testDocumentSnapshotOfLineRange() {
+    final Document document = createDocument("one\ntwo\n\nfour\nfive\n");
+    final DocumentSnapshot full = DocumentSnapshot.create(document);
+    final DocumentSnapshot range = DocumentSnapshot.create(document, 2, 3);
+    for (int line = 0; line < full.getLineCount(); line++) {
+      assertEquals(full.getLineStartOffset(line), range.getLineStartOffset(line));
+      assertEquals(full.getLineEndOffset(line), range.getLineEndOffset(line));
+    }
+    for (int offset = 0; offset < document.getTextLength(); offset++) {
+      assertEquals(full.getLineNumber(offset), range.getLineNumber(offset));
+    }
+  }
+
+  @NotNull
+  private static Document createDocument(@NotNull String text) {
+    return EditorFactory.getInstance().createDocument(text);
+  }
 }